@@ -0,0 +1,171 @@
+package greedLS;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Check the FIFO evaluation of time-dependent costs (CostProfiles.cost)
+ * on profiles that are not FIFO: the cost of an interval is far above the
+ * cost of the next one, so that leaving later arrives earlier.
+ *
+ * 1. For every arc, the arrival time t + cost(t) never decreases with t,
+ *    it is the earliest arrival over all later departure times, and
+ *    latestDeparture is its inverse.
+ * 2. The label-setting Dijkstra search of FindTDSP returns the same
+ *    arrival times as a label-correcting search, which does not rely on
+ *    FIFO, from random vertices and start times near interval boundaries.
+ *    With the interval costs evaluated without waiting, the two searches
+ *    disagree, which is what cost() prevents.
+ *
+ * Usage (from GreedLS/):
+ *   javac -d classes src/greedLS/*.java bench/greedLS/*.java
+ *   java -classpath classes greedLS.FifoCheck [side] [queries]
+ */
+public class FifoCheck {
+	static final int SLOTS = 8;
+
+	/**
+	 * Grid of side x side vertices whose arcs have SLOTS interval costs;
+	 * one interval in four costs 10 to 14 minutes, the others 1 to 10 s.
+	 */
+	static CSRGraph grid(int side, Random rnd) {
+		int n = side * side;
+		int m = 4 * n;
+		int[] src = new int[m], tgt = new int[m], cost = new int[m], value = new int[m];
+		CostProfiles profiles = new CostProfiles();
+		int[] costs = new int[SLOTS];
+		int k = 0;
+		for (int v = 0; v < n; v++) {
+			int x = v % side, y = v / side;
+			for (int w : new int[] { x + 1 < side ? v + 1 : -1, y + 1 < side ? v + side : -1 }) {
+				if (w < 0) continue;
+				for (int dir = 0; dir < 2; dir++) {
+					for (int i = 0; i < SLOTS; i++) {
+						costs[i] = rnd.nextInt(4) == 0 ? 600000 + rnd.nextInt(240000) : 1000 + rnd.nextInt(9000);
+					}
+					src[k] = dir == 0 ? v : w;
+					tgt[k] = dir == 0 ? w : v;
+					cost[k] = profiles.add(costs, SLOTS);
+					value[k++] = rnd.nextInt(20);
+				}
+			}
+		}
+		return CSRGraph.build(n, k, src, tgt, cost, value, profiles.toArray());
+	}
+
+	/**
+	 * Cost of the interval of time, without waiting.
+	 */
+	static int intervalCost(CSRGraph g, int a, int time) {
+		int s = Math.min(CostProfiles.slot(time), SLOTS - 1);
+		return g.arcCost(a, s * GreedLS.costGranularity);
+	}
+
+	static int cost(CSRGraph g, int a, int time, boolean waiting) {
+		return waiting ? g.arcCost(a, time) : intervalCost(g, a, time);
+	}
+
+	/**
+	 * Label-setting search as in FindTDSP.tdsp.
+	 */
+	static int[] dijkstra(CSRGraph g, int s, int startTime, boolean waiting) {
+		int n = g.vertexCount();
+		int[] arrival = new int[n];
+		boolean[] settled = new boolean[n];
+		Arrays.fill(arrival, Integer.MAX_VALUE);
+		VertexQueue q = VertexQueue.create(VertexQueue.DARY_HEAP, n);
+		arrival[s] = startTime;
+		q.push(s, startTime);
+		while (!q.isEmpty()) {
+			int v = q.pop();
+			settled[v] = true;
+			for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+				int w = g.arcTarget(a);
+				if (settled[w]) continue;
+				int time = arrival[v] + cost(g, a, arrival[v], waiting);
+				if (time < arrival[w]) {
+					arrival[w] = time;
+					q.push(w, time);
+				}
+			}
+		}
+		return arrival;
+	}
+
+	/**
+	 * Label-correcting search: a vertex is scanned again whenever its
+	 * arrival time improves.
+	 */
+	static int[] labelCorrecting(CSRGraph g, int s, int startTime, boolean waiting) {
+		int n = g.vertexCount();
+		int[] arrival = new int[n];
+		boolean[] queued = new boolean[n];
+		Arrays.fill(arrival, Integer.MAX_VALUE);
+		ArrayDeque<Integer> q = new ArrayDeque<Integer>();
+		arrival[s] = startTime;
+		q.add(s);
+		queued[s] = true;
+		while (!q.isEmpty()) {
+			int v = q.poll();
+			queued[v] = false;
+			for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+				int w = g.arcTarget(a);
+				int time = arrival[v] + cost(g, a, arrival[v], waiting);
+				if (time < arrival[w]) {
+					arrival[w] = time;
+					if (!queued[w]) {
+						queued[w] = true;
+						q.add(w);
+					}
+				}
+			}
+		}
+		return arrival;
+	}
+
+	static void check(boolean ok, String msg) {
+		if (!ok) throw new IllegalStateException(msg);
+	}
+
+	public static void main(String[] args) {
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		Random rnd = new Random(5);
+		CSRGraph g = grid(side, rnd);
+		int granularity = GreedLS.costGranularity;
+		int day = SLOTS * granularity;
+
+		//---1. FIFO, earliest arrival and inverse, arc by arc
+		for (int a = 0; a < g.arcCount(); a += 7) {
+			int previous = Integer.MIN_VALUE;
+			for (int t = 0; t < day; t += 997) {
+				int arrival = t + g.arcCost(a, t);
+				check(arrival >= previous, "arc " + a + " is not FIFO at " + t);
+				previous = arrival;
+				//---within an interval, leaving later arrives later
+				int best = t + intervalCost(g, a, t);
+				for (int s = CostProfiles.slot(t) + 1; s < SLOTS; s++)
+					best = Math.min(best, s * granularity + intervalCost(g, a, s * granularity));
+				check(arrival == best, "arc " + a + " at " + t + ": " + arrival + " instead of " + best);
+				int latest = g.arcLatestDeparture(a, arrival);
+				check(latest >= t && latest + g.arcCost(a, latest) <= arrival
+						&& (latest + 1) + g.arcCost(a, latest + 1) > arrival,
+						"latestDeparture of arc " + a + " for " + arrival + ": " + latest);
+			}
+		}
+
+		//---2. label-setting against label-correcting
+		int differ = 0;
+		for (int i = 0; i < queries; i++) {
+			int s = rnd.nextInt(g.vertexCount());
+			int startTime = (1 + rnd.nextInt(SLOTS - 2)) * granularity - rnd.nextInt(60000);
+			check(Arrays.equals(dijkstra(g, s, startTime, true), labelCorrecting(g, s, startTime, true)),
+					"Dijkstra differs from the label-correcting search from " + s + " at " + startTime);
+			if (!Arrays.equals(dijkstra(g, s, startTime, false), labelCorrecting(g, s, startTime, false))) differ++;
+		}
+		System.out.println(g.vertexCount() + " vertices, " + g.arcCount() + " arcs: FIFO costs ok, "
+				+ queries + " searches equal; without waiting " + differ + " of them differ");
+	}
+}
@@ -0,0 +1,184 @@
+package greedLS;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+
+/**
+ * Compare the priority queues of the Dijkstra search of FindTDSP.tdsp:
+ * java.util.PriorityQueue with one node object per improvement and lazy
+ * deletion (the former implementation), and DaryHeap with decrease-key
+ * for several arities.
+ *
+ * Every variant runs the same random point-to-point queries; the costs
+ * are checked against each other. Each measurement is preceded by a
+ * warm-up round so that the JIT has compiled the search loop.
+ *
+ * Usage (from GreedLS/):
+ *   javac -d classes src/greedLS/*.java bench/greedLS/*.java
+ *   java -classpath classes greedLS.HeapBenchmark [arcFile nodeFile] [queries]
+ * Without files, a 300x300 grid with random costs is used.
+ */
+public class HeapBenchmark {
+
+	/**
+	 * Former queue entry, compared by arrival time.
+	 */
+	static class Node implements Comparable<Node> {
+		final int id, arrTime, value;
+
+		Node(int id, int arrTime, int value) {
+			this.id = id;
+			this.arrTime = arrTime;
+			this.value = value;
+		}
+
+		@Override
+		public int compareTo(Node o) {
+			return Integer.compare(this.arrTime, o.arrTime);
+		}
+	}
+
+	interface Search {
+		int run(RoadNetwork g, int s, int t, int startTime);
+	}
+
+	static int[] arrival;
+	static int[] collected;
+	static boolean[] visited;
+
+	/**
+	 * java.util.PriorityQueue with lazy deletion.
+	 */
+	static int priorityQueue(RoadNetwork g, int s, int t, int startTime) {
+		int n = g.vertexCount();
+		Arrays.fill(arrival, 0, n, Integer.MAX_VALUE);
+		Arrays.fill(visited, 0, n, false);
+		PriorityQueue<Node> q = new PriorityQueue<Node>(20);
+		arrival[s] = startTime;
+		collected[s] = 0;
+		q.offer(new Node(s, startTime, 0));
+		Node cur;
+		while ((cur = q.poll()) != null) {
+			int v = cur.id;
+			if (visited[v]) continue;
+			visited[v] = true;
+			if (v == t) return arrival[t] - startTime;
+			for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+				int w = g.arcTarget(a);
+				if (visited[w]) continue;
+				int time = cur.arrTime + g.arcCost(a, cur.arrTime);
+				if (time < arrival[w]) {
+					arrival[w] = time;
+					collected[w] = cur.value + g.arcValue(a);
+					q.offer(new Node(w, time, collected[w]));
+				}
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Indexed d-ary heap with decrease-key.
+	 */
+	static Search daryHeap(final int arity) {
+		return new Search() {
+			DaryHeap q = new DaryHeap(arity, 0);
+
+			@Override
+			public int run(RoadNetwork g, int s, int t, int startTime) {
+				int n = g.vertexCount();
+				q.clear(n);
+				Arrays.fill(arrival, 0, n, Integer.MAX_VALUE);
+				Arrays.fill(visited, 0, n, false);
+				arrival[s] = startTime;
+				collected[s] = 0;
+				q.push(s, startTime);
+				while (!q.isEmpty()) {
+					int v = q.pop();
+					visited[v] = true;
+					if (v == t) return arrival[t] - startTime;
+					int now = arrival[v];
+					for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+						int w = g.arcTarget(a);
+						if (visited[w]) continue;
+						int time = now + g.arcCost(a, now);
+						if (time < arrival[w]) {
+							arrival[w] = time;
+							collected[w] = collected[v] + g.arcValue(a);
+							q.push(w, time);
+						}
+					}
+				}
+				return Integer.MAX_VALUE;
+			}
+		};
+	}
+
+	/**
+	 * Grid of side x side vertices with arcs in both directions.
+	 */
+	static CSRGraph grid(int side, Random rnd) {
+		int n = side * side;
+		int m = 4 * n;
+		int[] src = new int[m], tgt = new int[m], cost = new int[m], value = new int[m];
+		int k = 0;
+		for (int v = 0; v < n; v++) {
+			int x = v % side, y = v / side;
+			if (x + 1 < side) {
+				int c = 1000 + rnd.nextInt(9000);
+				src[k] = v; tgt[k] = v + 1; cost[k] = c; value[k++] = rnd.nextInt(20);
+				src[k] = v + 1; tgt[k] = v; cost[k] = c; value[k++] = rnd.nextInt(20);
+			}
+			if (y + 1 < side) {
+				int c = 1000 + rnd.nextInt(9000);
+				src[k] = v; tgt[k] = v + side; cost[k] = c; value[k++] = rnd.nextInt(20);
+				src[k] = v + side; tgt[k] = v; cost[k] = c; value[k++] = rnd.nextInt(20);
+			}
+		}
+		return CSRGraph.build(n, k, src, tgt, cost, value, new int[0]);
+	}
+
+	public static void main(String[] args) throws Exception {
+		RoadNetwork g;
+		int queries = 200;
+		if (args.length >= 2) {
+			g = new Graph(args[0], args[1]).network;
+			if (args.length > 2) queries = Integer.parseInt(args[2]);
+		} else {
+			if (args.length == 1) queries = Integer.parseInt(args[0]);
+			g = grid(300, new Random(1));
+		}
+		int n = g.vertexCount();
+		arrival = new int[n];
+		collected = new int[n];
+		visited = new boolean[n];
+		System.out.println(n + " vertices, " + g.arcCount() + " arcs, " + queries + " queries");
+
+		Random rnd = new Random(7);
+		int[] s = new int[queries], t = new int[queries];
+		for (int i = 0; i < queries; i++) {
+			s[i] = rnd.nextInt(n);
+			t[i] = rnd.nextInt(n);
+		}
+
+		String[] names = { "PriorityQueue", "DaryHeap(2)", "DaryHeap(4)", "DaryHeap(8)" };
+		Search[] searches = { HeapBenchmark::priorityQueue, daryHeap(2), daryHeap(4), daryHeap(8) };
+		long[] reference = null;
+		for (int k = 0; k < searches.length; k++) {
+			long[] costs = new long[queries];
+			for (int round = 0; round < 2; round++) { //---warm-up, then measure
+				long start = System.nanoTime();
+				for (int i = 0; i < queries; i++) costs[i] = searches[k].run(g, s[i], t[i], 0);
+				long elapsed = System.nanoTime() - start;
+				if (round == 1) {
+					System.out.println(String.format("%-14s %10.1f us/query", names[k], elapsed / 1000.0 / queries));
+				}
+			}
+			if (reference == null) reference = costs;
+			else if (!Arrays.equals(reference, costs))
+				throw new IllegalStateException(names[k] + " returns different costs");
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package greedLS;
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Compare the VertexQueue implementations (SearchWorkspace.queueType) in
+ * the Dijkstra search of FindTDSP.tdsp: the binary heap, the 4-ary heap
+ * and the radix heap.
+ *
+ * Two kinds of graph are measured: a road network (the graph files, or a
+ * 300x300 grid with random costs) and a complete graph like the ones the
+ * Python driver writes to Graph/Arcs.txt (make_tfvrnet in nets.py): every
+ * pair of points is joined in both directions by the travel time of the
+ * shortest path between them, in milliseconds. The complete graph is made
+ * from random points, whose distances are shortest path lengths as well.
+ * Road networks have few arcs per vertex; complete graphs lower the key
+ * of almost every vertex at every step.
+ *
+ * Every queue runs the same random point-to-point queries and the same
+ * searches from a random vertex to all the others; the costs are checked
+ * against each other. Each measurement is preceded by a warm-up round.
+ *
+ * Usage (from GreedLS/):
+ *   javac -d classes src/greedLS/*.java bench/greedLS/*.java
+ *   java -classpath classes greedLS.QueueBenchmark [arcFile nodeFile] [queries] [points]
+ * Without files, a 300x300 grid with random costs is used; the complete
+ * graph has 1000 points by default.
+ */
+public class QueueBenchmark {
+
+	static int[] arrival;
+	static boolean[] visited;
+
+	/**
+	 * Dijkstra from s at startTime; to all the vertices if t is -1.
+	 *
+	 * @return the travel time to t, or the sum of the travel times to the
+	 *         reached vertices if t is -1.
+	 */
+	static long search(VertexQueue q, RoadNetwork g, int s, int t, int startTime) {
+		int n = g.vertexCount();
+		q.clear(n);
+		Arrays.fill(arrival, 0, n, Integer.MAX_VALUE);
+		Arrays.fill(visited, 0, n, false);
+		arrival[s] = startTime;
+		q.push(s, startTime);
+		long total = 0;
+		while (!q.isEmpty()) {
+			int v = q.pop();
+			visited[v] = true;
+			int now = arrival[v];
+			if (v == t) return now - startTime;
+			total += now - startTime;
+			for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+				int w = g.arcTarget(a);
+				if (visited[w]) continue;
+				int time = now + g.arcCost(a, now);
+				if (time < arrival[w]) {
+					arrival[w] = time;
+					q.push(w, time);
+				}
+			}
+		}
+		return t < 0 ? total : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Complete graph of k random points in a square, with the travel time
+	 * between two points in milliseconds proportional to their distance.
+	 */
+	static CSRGraph complete(int k, Random rnd) {
+		double[] x = new double[k], y = new double[k];
+		for (int i = 0; i < k; i++) {
+			x[i] = rnd.nextDouble() * 1000;
+			y[i] = rnd.nextDouble() * 1000;
+		}
+		int m = k * (k - 1);
+		int[] src = new int[m], tgt = new int[m], cost = new int[m], value = new int[m];
+		int j = 0;
+		for (int u = 0; u < k; u++) {
+			for (int v = 0; v < k; v++) {
+				if (u == v) continue;
+				src[j] = u;
+				tgt[j] = v;
+				cost[j] = (int) (Math.hypot(x[u] - x[v], y[u] - y[v]) * 1e3);
+				value[j++] = 2;
+			}
+		}
+		return CSRGraph.build(k, m, src, tgt, cost, value, new int[0]);
+	}
+
+	static void run(String title, RoadNetwork g, int queries) {
+		int n = g.vertexCount();
+		arrival = new int[n];
+		visited = new boolean[n];
+		System.out.println(title + ": " + n + " vertices, " + g.arcCount() + " arcs, " + queries + " queries");
+
+		Random rnd = new Random(7);
+		int[] s = new int[queries], t = new int[queries];
+		for (int i = 0; i < queries; i++) {
+			s[i] = rnd.nextInt(n);
+			t[i] = rnd.nextInt(n);
+		}
+
+		String[] types = { VertexQueue.BINARY_HEAP, VertexQueue.DARY_HEAP, VertexQueue.RADIX_HEAP };
+		for (boolean all : new boolean[] { false, true }) {
+			long[] reference = null;
+			for (String type : types) {
+				VertexQueue q = VertexQueue.create(type, n);
+				long[] costs = new long[queries];
+				for (int round = 0; round < 2; round++) { //---warm-up, then measure
+					long start = System.nanoTime();
+					for (int i = 0; i < queries; i++) costs[i] = search(q, g, s[i], all ? -1 : t[i], 0);
+					long elapsed = System.nanoTime() - start;
+					if (round == 1) {
+						System.out.println(String.format("  %-12s %-13s %10.1f us/query", all ? "one-to-all" : "one-to-one",
+								type, elapsed / 1000.0 / queries));
+					}
+				}
+				if (reference == null) reference = costs;
+				else if (!Arrays.equals(reference, costs))
+					throw new IllegalStateException(type + " returns different costs");
+			}
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		RoadNetwork g;
+		int queries = 200;
+		int points = 1000;
+		int i = 0;
+		if (args.length >= 2 && !args[0].matches("\\d+")) {
+			g = new Graph(args[0], args[1]).network;
+			i = 2;
+		} else {
+			g = HeapBenchmark.grid(300, new Random(1));
+		}
+		if (args.length > i) queries = Integer.parseInt(args[i]);
+		if (args.length > i + 1) points = Integer.parseInt(args[i + 1]);
+		run("Road network", g, queries);
+		run("Complete graph", complete(points, new Random(3)), queries);
+	}
+}
@@ -1,17 +1,7 @@
 package greedLS;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.StringTokenizer;
-import java.util.Random;
 
 
 /**
@@ -43,10 +33,10 @@ import java.util.Random;
  *           consumption (remains low, less than 50MB )
  */
 public class AdjList {
-	public Map<Integer, Map<Integer, Pair<Integer,Integer>>> adjacencyList = 
-	       new HashMap<Integer, Map<Integer, Pair<Integer,Integer>>>();
-	public Map<Integer, Map<Integer, Pair<Integer,Integer>>> reverse_adjacencyList = 
-	       new HashMap<Integer, Map<Integer, Pair<Integer,Integer>>>();
+	/* Arcs as listed in the file, kept until the network is built. */
+	private TextGraphLoader.ArcTable arcs = null;
+	/* Forward and reverse stars of the network, see CSRGraph. */
+	private CSRGraph network = null;
 	private int MAX_VALUE = 100;
 	/**
 	 * Dynamic List Builder
@@ -56,48 +46,9 @@ public class AdjList {
 	 *            0 means dynamic list generation
 	 */
 	public AdjList(String inFile, int type) {
-		Random rand = new Random();
-		Pair<Integer,Integer> pair;
 		System.out.println("Loading Dynamic File: " + inFile);
 		try {
-			List<String> lines = Files.readAllLines(Paths.get(inFile), StandardCharsets.UTF_8);
-			Arc arc;
-			System.out.println("Building graph. Please wait...");
-			int i = 0;
-			for (String temp : lines) {
-				if (i % 100 == 0) System.out.print(i * 100 / 1000 + "%...");
-				arc = new Arc();
-				StringTokenizer sT = new StringTokenizer(temp, ":");
-				temp = sT.nextToken();
-				arc.source = Integer.parseInt( temp.substring(0, temp.indexOf(',')) );
-				arc.target = Integer.parseInt( temp.substring(temp.indexOf(',')+1) );
-				
-				int cost, value = 0;
-				temp = sT.nextToken(); 
-				StringTokenizer sT2 = new StringTokenizer(temp, ";");
-				int precost = -1, prevalue = -1;
-				while(sT2.hasMoreTokens()){
-					temp = sT2.nextToken();
-					cost = Integer.parseInt(temp.substring(0, temp.indexOf(',')));
-					
-					/* Obtain value from file calculated from Flickr photos */
-					value = Integer.parseInt( temp.substring(temp.indexOf(',')+1) ); 
-					//int randvalue = rand.nextInt(this.MAX_VALUE); //---randomly generated
-					//System.out.println(arc.source+ ","+ arc.target + ":" + cost + ","+ value);
-					arc.cost_value_list=new Pair<Integer,Integer>(cost,value);
-				}
-				if(this.adjacencyList.get(arc.source) == null){
-					this.adjacencyList.put(arc.source, new HashMap<Integer, Pair<Integer,Integer>>());
-				}
-				(this.adjacencyList.get(arc.source)).put(arc.target, arc.cost_value_list);
-				
-				if(this.reverse_adjacencyList.get(arc.target)==null){
-					this.reverse_adjacencyList.put(arc.target, new HashMap<Integer, Pair<Integer,Integer>>());
-				}
-				(this.reverse_adjacencyList.get(arc.target)).put(arc.source, arc.cost_value_list);
-				
-				i++;
-			}
+			this.arcs = TextGraphLoader.readArcs(inFile);
 		}
 
 		catch (IOException io) {
@@ -113,14 +64,41 @@ public class AdjList {
 	
 
 
-	public Map<Integer, Map<Integer, Pair<Integer,Integer>>> getList() {
-		return this.adjacencyList;
+	/**
+	 * Replace the node IDs of the arc file by dense vertex IDs.
+	 * Must be called before the network is built.
+	 */
+	public void translate(VertexIdMap ids) {
+		ids.translate(this.arcs.sources, this.arcs.size);
+		ids.translate(this.arcs.targets, this.arcs.size);
+		this.arcs.maxId = ids.size() - 1;
+	}
+
+	public CSRGraph getList() {
+		return this.getList(0);
+	}
 
+	/**
+	 * Build the network on first use.
+	 * 
+	 * @param vertexCount
+	 *            minimum number of vertices of the network, e.g., the
+	 *            number of nodes in the node file.
+	 */
+	public CSRGraph getList(int vertexCount) {
+		if (this.network == null) {
+			System.out.println("Building graph. Please wait...");
+			int n = Math.max(vertexCount, this.arcs.maxId + 1);
+			this.network = CSRGraph.build(n, this.arcs.size, this.arcs.sources,
+					this.arcs.targets, this.arcs.costs, this.arcs.values, this.arcs.profiles.toArray());
+			this.arcs = null;
+		}
+		return this.network;
 	}
 
 
 	public int getSize() {
-		return this.adjacencyList.size();
+		return this.network.vertexCount();
 	}
 
 	public void printMemStat() { // prints statistics of memory consumption for
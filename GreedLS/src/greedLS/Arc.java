@@ -16,7 +16,7 @@ import java.util.List;
 public class Arc { 
 	public int source;
 	public int target;
-	public Pair<Integer,Integer> cost_value_list; //millisecond, photo#
+	public int index; //arc index in the road network
 	//public int earliestArrive;
 	//public int latestDeparture;
 	//public double criteria; //to see
@@ -24,15 +24,22 @@ public class Arc {
 	Arc(){
 		this.source = -1;
 		this.target = -1;
+		this.index = RoadNetwork.NO_ARC;
 	}
 	Arc(int ps, int pt){
 		this.source = ps;
 		this.target = pt;
+		this.index = RoadNetwork.NO_ARC;
+	}
+	Arc(RoadNetwork network, int a){
+		this.source = network.arcSource(a);
+		this.target = network.arcTarget(a);
+		this.index = a;
 	}
 	void copyArc(Arc a){
 		this.source = a.source;
 		this.target = a.target;
-		this.cost_value_list = a.cost_value_list;
+		this.index = a.index;
 	}
 	
 	@Override
@@ -46,10 +53,11 @@ public class Arc {
 	//This is required for HashSet
     //Note that if you override equals, you should override this
     //as well. See: http://stackoverflow.com/questions/27581/overriding-equals-and-hashcode-in-java
+    //source + target made (a,b) and (b,a) collide; mix the source instead
     @Override 
     public int hashCode()
     {
-        return ((Integer)source).hashCode() + ((Integer)target).hashCode();
+        return source * 0x9E3779B1 + target;
     }
 	
 	Boolean equalNULL(){
@@ -0,0 +1,66 @@
+package greedLS;
+
+
+/**
+ * Multiset of arcs identified by their source and target vertex, like
+ * ArcSet: the number of times each arc occurs in the solution path, see
+ * Solution. The counts are the ints of ArcHashTable.
+ */
+public class ArcCounts extends ArcHashTable {
+
+	public ArcCounts() {
+		super(true);
+	}
+
+	/**
+	 * Remove all the arcs.
+	 */
+	public void clear() {
+		this.clearTable();
+	}
+
+	/**
+	 * @return the number of occurrences of the arc.
+	 */
+	public int count(int source, int target) {
+		long key = key(source, target);
+		int i = this.probe(key);
+		return this.table[i] == key ? this.values[i] : 0;
+	}
+
+	public boolean contains(int source, int target) {
+		return this.count(source, target) > 0;
+	}
+
+	/**
+	 * Add one occurrence of the arc.
+	 */
+	public void add(int source, int target) {
+		long key = key(source, target);
+		int i = this.probe(key);
+		if (this.table[i] == key) {
+			this.values[i]++;
+			return;
+		}
+		//---store may grow the table, values with it
+		i = this.store(i, key);
+		this.values[i] = 1;
+	}
+
+	/**
+	 * Remove one occurrence of the arc, if any.
+	 */
+	public void remove(int source, int target) {
+		long key = key(source, target);
+		int i = this.probe(key);
+		if (this.table[i] != key) return;
+		if (--this.values[i] == 0) this.deleteSlot(i);
+	}
+
+	/**
+	 * @return the number of distinct arcs.
+	 */
+	public int size() {
+		return this.stored;
+	}
+}
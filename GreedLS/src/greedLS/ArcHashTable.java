@@ -0,0 +1,117 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Hash table of arcs identified by their source and target vertex, the
+ * storage of ArcSet and ArcCounts, with an optional int per arc.
+ *
+ * Arcs are packed into a long, source << 32 | target, and kept in an
+ * open-addressing table with linear probing and a mixed hash, at most
+ * half full; removal shifts the following entries back, so there are no
+ * tombstones. No object is created per arc.
+ */
+abstract class ArcHashTable {
+	static final long EMPTY = -1L;
+
+	long[] table = new long[16];
+	/* The int of the arc in the same slot of table, or null */
+	int[] values;
+	int stored = 0;
+
+	static long key(int source, int target) {
+		return ((long) source << 32) | (target & 0xFFFFFFFFL);
+	}
+
+	ArcHashTable(boolean withValues) {
+		Arrays.fill(this.table, EMPTY);
+		if (withValues) this.values = new int[this.table.length];
+	}
+
+	final int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		h ^= h >>> 29;
+		return (int) h & (this.table.length - 1);
+	}
+
+	/**
+	 * Remove all the arcs.
+	 */
+	void clearTable() {
+		if (this.stored > 0) Arrays.fill(this.table, EMPTY);
+		this.stored = 0;
+	}
+
+	/**
+	 * @return the slot holding key, or the empty slot where it belongs.
+	 */
+	final int probe(long key) {
+		int mask = this.table.length - 1;
+		int i = this.slot(key);
+		while (this.table[i] != key && this.table[i] != EMPTY) i = (i + 1) & mask;
+		return i;
+	}
+
+	/**
+	 * Put key into the empty slot i returned by probe.
+	 *
+	 * @return the slot of key, which differs from i if the table grew.
+	 */
+	final int store(int i, long key) {
+		this.table[i] = key;
+		if (++this.stored * 2 > this.table.length) {
+			this.grow();
+			return this.probe(key);
+		}
+		return i;
+	}
+
+	/**
+	 * Empty slot i, shifting back the entries that probed past it.
+	 */
+	final void deleteSlot(int i) {
+		int mask = this.table.length - 1;
+		for (int j = (i + 1) & mask; this.table[j] != EMPTY; j = (j + 1) & mask) {
+			int home = this.slot(this.table[j]);
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				this.table[i] = this.table[j];
+				if (this.values != null) this.values[i] = this.values[j];
+				i = j;
+			}
+		}
+		this.table[i] = EMPTY;
+		this.stored--;
+	}
+
+	/**
+	 * Swap the stored arcs of two tables.
+	 */
+	void swapTable(ArcHashTable o) {
+		long[] table = this.table;
+		this.table = o.table;
+		o.table = table;
+		int[] values = this.values;
+		this.values = o.values;
+		o.values = values;
+		int stored = this.stored;
+		this.stored = o.stored;
+		o.stored = stored;
+	}
+
+	private void grow() {
+		long[] old = this.table;
+		int[] oldValues = this.values;
+		this.table = new long[old.length * 2];
+		if (oldValues != null) this.values = new int[old.length * 2];
+		Arrays.fill(this.table, EMPTY);
+		int mask = this.table.length - 1;
+		for (int j = 0; j < old.length; j++) {
+			if (old[j] == EMPTY) continue;
+			int i = this.slot(old[j]);
+			while (this.table[i] != EMPTY) i = (i + 1) & mask;
+			this.table[i] = old[j];
+			if (oldValues != null) this.values[i] = oldValues[j];
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package greedLS;
+
+
+/**
+ * Set of arcs identified by their source and target vertex, as Arc.equals
+ * does: parallel arcs are the same element. Used for the feasible arcs
+ * G'' of GreedLS (CAS, tempCAS). See ArcHashTable for the layout.
+ *
+ * setAll() makes the set hold every arc of the network without storing
+ * them: the table then holds the arcs removed since.
+ */
+public class ArcSet extends ArcHashTable {
+	/* If set, the set is every arc except the stored ones */
+	private boolean all = false;
+	private int allCount = 0;
+
+	public ArcSet() {
+		super(false);
+	}
+
+	/**
+	 * Remove all the arcs.
+	 */
+	public void clear() {
+		this.clearTable();
+		this.all = false;
+	}
+
+	/**
+	 * Make the set hold every arc of a network with count arcs.
+	 */
+	public void setAll(int count) {
+		this.clear();
+		this.all = true;
+		this.allCount = count;
+	}
+
+	public boolean contains(int source, int target) {
+		long key = key(source, target);
+		return this.all != (this.table[this.probe(key)] == key);
+	}
+
+	/**
+	 * @return true if the arc was not in the set.
+	 */
+	public boolean add(int source, int target) {
+		long key = key(source, target);
+		return this.all ? this.delete(key) : this.insert(key);
+	}
+
+	/**
+	 * @return true if the arc was in the set.
+	 */
+	public boolean remove(int source, int target) {
+		long key = key(source, target);
+		return this.all ? this.insert(key) : this.delete(key);
+	}
+
+	/**
+	 * @return the number of arcs; after setAll(count), count minus the
+	 *         arcs removed since.
+	 */
+	public int size() {
+		return this.all ? this.allCount - this.stored : this.stored;
+	}
+
+	/**
+	 * Swap the contents of two sets.
+	 */
+	public void swap(ArcSet o) {
+		this.swapTable(o);
+		boolean all = this.all;
+		this.all = o.all;
+		o.all = all;
+		int allCount = this.allCount;
+		this.allCount = o.allCount;
+		o.allCount = allCount;
+	}
+
+	private boolean insert(long key) {
+		int i = this.probe(key);
+		if (this.table[i] == key) return false;
+		this.store(i, key);
+		return true;
+	}
+
+	private boolean delete(long key) {
+		int i = this.probe(key);
+		if (this.table[i] != key) return false;
+		this.deleteSlot(i);
+		return true;
+	}
+}
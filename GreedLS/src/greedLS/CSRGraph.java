@@ -0,0 +1,265 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Compressed-sparse-row representation of the road network.
+ *
+ * The arcs leaving vertex v occupy positions outOffsets[v] .. outOffsets[v+1]-1
+ * of the forward arrays; the position is the arc index. The reverse star
+ * stores the same arcs grouped by target, so that BWR can walk the
+ * incoming arcs of a vertex without hash lookups.
+ *
+ * A cost entry is either a fixed travel time or a reference into the
+ * shared pool of time-dependent profiles, see CostProfiles.
+ */
+public class CSRGraph implements RoadNetwork {
+	/* Forward star */
+	final int[] outOffsets;
+	final int[] sources;
+	final int[] targets;
+	final int[] cost; //millisecond, or ~offset into profiles
+	final int[] value; //photo#
+
+	/* Reverse star */
+	final int[] inOffsets;
+	final int[] inArcs; //forward arc index of each reverse entry
+	final int[] inSources;
+	final int[] inCost;
+	final int[] inValue;
+
+	/* Time-dependent cost profiles shared by all arcs */
+	final int[] profiles;
+
+	CSRGraph(int[] outOffsets, int[] sources, int[] targets, int[] cost, int[] value,
+			 int[] inOffsets, int[] inArcs, int[] inSources, int[] inCost, int[] inValue,
+			 int[] profiles) {
+		this.outOffsets = outOffsets;
+		this.sources = sources;
+		this.targets = targets;
+		this.cost = cost;
+		this.value = value;
+		this.inOffsets = inOffsets;
+		this.inArcs = inArcs;
+		this.inSources = inSources;
+		this.inCost = inCost;
+		this.inValue = inValue;
+		this.profiles = profiles;
+	}
+
+	/**
+	 * Build the forward and reverse stars from a list of arcs.
+	 * If the same (source, target) pair is listed more than once, the
+	 * last occurrence wins, as it did with the former HashMap lists.
+	 *
+	 * @param n number of vertices; every endpoint must be smaller than n.
+	 * @param m number of arcs in the lists.
+	 * @param profiles pool referred to by the negative entries of cost.
+	 */
+	public static CSRGraph build(int n, int m, int[] src, int[] tgt, int[] cost, int[] value, int[] profiles) {
+		int[] outOffsets = new int[n + 1];
+		for (int i = 0; i < m; i++) {
+			if (src[i] < 0 || src[i] >= n || tgt[i] < 0 || tgt[i] >= n)
+				throw new IllegalArgumentException("arc (" + src[i] + "," + tgt[i] + ") out of range");
+			outOffsets[src[i] + 1]++;
+		}
+		for (int v = 0; v < n; v++) outOffsets[v + 1] += outOffsets[v];
+
+		//---stable counting sort by source
+		int[] fill = new int[n];
+		System.arraycopy(outOffsets, 0, fill, 0, n);
+		int[] sTargets = new int[m];
+		int[] sCost = new int[m];
+		int[] sValue = new int[m];
+		for (int i = 0; i < m; i++) {
+			int pos = fill[src[i]]++;
+			sTargets[pos] = tgt[i];
+			sCost[pos] = cost[i];
+			sValue[pos] = value[i];
+		}
+
+		//---remove duplicated arcs in place, keeping the last cost and value
+		int[] slot = fill;
+		Arrays.fill(slot, -1);
+		int w = 0;
+		for (int v = 0; v < n; v++) {
+			int rowStart = w;
+			for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+				int t = sTargets[i];
+				if (slot[t] >= rowStart) {
+					sCost[slot[t]] = sCost[i];
+					sValue[slot[t]] = sValue[i];
+				} else {
+					slot[t] = w;
+					sTargets[w] = t;
+					sCost[w] = sCost[i];
+					sValue[w] = sValue[i];
+					w++;
+				}
+			}
+			outOffsets[v] = rowStart;
+		}
+		outOffsets[n] = w;
+		if (w < m) {
+			sTargets = Arrays.copyOf(sTargets, w);
+			sCost = Arrays.copyOf(sCost, w);
+			sValue = Arrays.copyOf(sValue, w);
+		}
+		return fromForwardStar(n, outOffsets, sTargets, sCost, sValue, profiles);
+	}
+
+	/**
+	 * Derive the arc sources and the reverse star from a forward star.
+	 */
+	static CSRGraph fromForwardStar(int n, int[] outOffsets, int[] targets, int[] cost, int[] value, int[] profiles) {
+		int m = outOffsets[n];
+		int[] sources = new int[m];
+		int[] inOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			for (int a = outOffsets[v]; a < outOffsets[v + 1]; a++) {
+				sources[a] = v;
+				inOffsets[targets[a] + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) inOffsets[v + 1] += inOffsets[v];
+
+		int[] fill = new int[n];
+		System.arraycopy(inOffsets, 0, fill, 0, n);
+		int[] inArcs = new int[m];
+		int[] inSources = new int[m];
+		int[] inCost = new int[m];
+		int[] inValue = new int[m];
+		for (int a = 0; a < m; a++) {
+			int r = fill[targets[a]]++;
+			inArcs[r] = a;
+			inSources[r] = sources[a];
+			inCost[r] = cost[a];
+			inValue[r] = value[a];
+		}
+		return new CSRGraph(outOffsets, sources, targets, cost, value,
+				inOffsets, inArcs, inSources, inCost, inValue, profiles);
+	}
+
+	/**
+	 * Return a new graph with the vertices renumbered: vertex v becomes
+	 * vertex rank[v]. The arcs are renumbered to follow the new rows.
+	 */
+	public CSRGraph permute(int[] rank) {
+		int n = this.vertexCount();
+		int m = this.arcCount();
+		int[] src = new int[m];
+		int[] tgt = new int[m];
+		for (int a = 0; a < m; a++) {
+			src[a] = rank[this.sources[a]];
+			tgt[a] = rank[this.targets[a]];
+		}
+		return CSRGraph.build(n, m, src, tgt, this.cost, this.value, this.profiles);
+	}
+
+	@Override
+	public int vertexCount() {
+		return this.outOffsets.length - 1;
+	}
+
+	@Override
+	public int arcCount() {
+		return this.targets.length;
+	}
+
+	@Override
+	public int firstOut(int v) {
+		int a = this.outOffsets[v];
+		return a < this.outOffsets[v + 1] ? a : NO_ARC;
+	}
+
+	@Override
+	public int nextOut(int v, int a) {
+		return ++a < this.outOffsets[v + 1] ? a : NO_ARC;
+	}
+
+	@Override
+	public int arcSource(int a) {
+		return this.sources[a];
+	}
+
+	@Override
+	public int arcTarget(int a) {
+		return this.targets[a];
+	}
+
+	@Override
+	public int arcCost(int a, int time) {
+		return CostProfiles.cost(this.profiles, this.cost[a], time);
+	}
+
+	/**
+	 * @return the smallest travel time of arc a over the whole day.
+	 */
+	public int arcMinCost(int a) {
+		return CostProfiles.minCost(this.profiles, this.cost[a]);
+	}
+
+	/**
+	 * @return the latest time to enter arc a so as to reach its target
+	 *         no later than arrival.
+	 */
+	public int arcLatestDeparture(int a, int arrival) {
+		return CostProfiles.latestDeparture(this.profiles, this.cost[a], arrival);
+	}
+
+	@Override
+	public int arcValue(int a) {
+		return this.value[a];
+	}
+
+	@Override
+	public int firstIn(int v) {
+		int r = this.inOffsets[v];
+		return r < this.inOffsets[v + 1] ? r : NO_ARC;
+	}
+
+	@Override
+	public int nextIn(int v, int r) {
+		return ++r < this.inOffsets[v + 1] ? r : NO_ARC;
+	}
+
+	@Override
+	public int inArc(int r) {
+		return this.inArcs[r];
+	}
+
+	@Override
+	public int inSource(int r) {
+		return this.inSources[r];
+	}
+
+	@Override
+	public int inCost(int r, int time) {
+		return CostProfiles.cost(this.profiles, this.inCost[r], time);
+	}
+
+	@Override
+	public int inLatestDeparture(int r, int arrival) {
+		return CostProfiles.latestDeparture(this.profiles, this.inCost[r], arrival);
+	}
+
+	@Override
+	public int inValue(int r) {
+		return this.inValue[r];
+	}
+
+	@Override
+	public boolean isTimeDependent() {
+		return this.profiles.length > 0;
+	}
+
+	@Override
+	public int findArc(int source, int target) {
+		if (source < 0 || source >= this.vertexCount()) return NO_ARC;
+		for (int a = this.outOffsets[source]; a < this.outOffsets[source + 1]; a++) {
+			if (this.targets[a] == target) return a;
+		}
+		return NO_ARC;
+	}
+}
@@ -0,0 +1,54 @@
+package greedLS;
+
+import java.util.List;
+
+
+/**
+ * Feasible vertices (V') and candidate arcs (G') of a gap, as calculated
+ * by GreedLS.calculateCandidateArcSet for the start and end vertex, start
+ * time and budget of the gap at that time.
+ *
+ * The set is kept on the Gap and reused by the next iterations as long
+ * as the gap is in the solution with the same start time and budget: V''
+ * only shrinks between iterations and still contains V' of the gap, so
+ * the reachability sweeps would find the same vertices again. A gap that
+ * is replaced by Solution.insertArc takes its set with it; a gap delayed
+ * by an insertion before it no longer matches.
+ */
+public class CandidateArcSet {
+	final int start;
+	final int end;
+	final int startTime;
+	final int budget;
+
+	/* V' in ascending order */
+	final int[] vertices;
+	/* G', arc indices */
+	final int[] arcs;
+	/* GreedLS.criteria of each arc of G' for the gap, once scored; they 
+	   depend on the same start, end and start time */
+	double[] criteria;
+	/* The positions in G' of the arcs that were not in the solution, and 
+	   the queue entries of those arcs (the best candidatesPerGap if set) 
+	   made from them, see GreedLS.QueuedArc */
+	int[] notInSolution;
+	List<GreedLS.QueuedArc> queued;
+
+	CandidateArcSet(Gap gap, int budget, int[] vertices, int[] arcs) {
+		this.start = gap.start;
+		this.end = gap.end;
+		this.startTime = gap.actualStarttime;
+		this.budget = budget;
+		this.vertices = vertices;
+		this.arcs = arcs;
+	}
+
+	/**
+	 * @return true if the set was calculated for the gap as it is now and
+	 *         for the budget.
+	 */
+	boolean matches(Gap gap, int budget) {
+		return this.start == gap.start && this.end == gap.end
+				&& this.startTime == gap.actualStarttime && this.budget == budget;
+	}
+}
@@ -0,0 +1,423 @@
+package greedLS;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Contraction hierarchy of a network with static travel times, for fast
+ * point-to-point shortest paths, see Graph.contractionHierarchy.
+ *
+ * The vertices are contracted one by one in the order of twice their
+ * edge difference (shortcuts added minus edges removed) plus the number
+ * of contracted neighbors and their level in the hierarchy. Contracting v adds a shortcut u -> w of cost
+ * c(u, v) + c(v, w) unless a local search from u finds a path to w
+ * around v that is no longer (a witness). The rank of a vertex is its
+ * position in the contraction order.
+ *
+ * A query searches upwards (towards higher ranks) from the source and
+ * from the target over the reverse edges; the shortest path passes
+ * through the vertex of highest rank on it, which both searches reach.
+ * A shortcut keeps the two edges it replaces, so the path is unpacked
+ * into arcs of the base graph, which provide the collected value.
+ */
+public class ContractionHierarchy {
+	/* Vertices settled by a witness search before it gives up, when
+	   estimating the priority of a vertex and when contracting it */
+	private static final int ESTIMATE_SETTLE_LIMIT = 50;
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private final CSRGraph base;
+	private final int n;
+
+	/* Edges: original arcs (child1 = -1, child2 = arc) and shortcuts */
+	private int edgeCount = 0;
+	private int[] edgeFrom = new int[16];
+	private int[] edgeTo = new int[16];
+	private int[] edgeCost = new int[16];
+	private int[] child1 = new int[16];
+	private int[] child2 = new int[16];
+
+	/* Upward edges by source, and downward edges by target (reverse upward) */
+	private int[] upOffsets;
+	private int[] upEdges;
+	private int[] downOffsets;
+	private int[] downEdges;
+
+	/* Position of each vertex in the contraction order */
+	public final int[] rank;
+
+	/* Edges of each vertex during the contraction */
+	private int[][] outEdges;
+	private int[] outSize;
+	private int[][] inEdges;
+	private int[] inSize;
+	/* Edges replaced by a shorter shortcut, left out of the search graph */
+	private BitSet dominated = new BitSet();
+
+	/* Witness search */
+	private DaryHeap witnessQueue;
+	private int[] witnessDist;
+	private int[] witnessStamp;
+	private int witnessEpoch = 0;
+
+	private ContractionHierarchy(CSRGraph base) {
+		this.base = base;
+		this.n = base.vertexCount();
+		this.rank = new int[this.n];
+	}
+
+	/**
+	 * Contract the vertices of a network with static travel times.
+	 */
+	public static ContractionHierarchy build(CSRGraph base) {
+		if (base.isTimeDependent())
+			throw new IllegalArgumentException("contraction hierarchies need static travel times");
+		long start = System.currentTimeMillis();
+		ContractionHierarchy ch = new ContractionHierarchy(base);
+		ch.contract();
+		System.out.println("Contracted " + ch.n + " vertices in "
+				+ (System.currentTimeMillis() - start) + " ms, "
+				+ (ch.edgeCount - base.arcCount()) + " shortcuts");
+		return ch;
+	}
+
+	private void contract() {
+		int n = this.n;
+		this.outEdges = new int[n][];
+		this.inEdges = new int[n][];
+		this.outSize = new int[n];
+		this.inSize = new int[n];
+		for (int v = 0; v < n; v++) {
+			this.outEdges[v] = new int[2];
+			this.inEdges[v] = new int[2];
+		}
+		for (int a = 0; a < this.base.arcCount(); a++) {
+			int s = this.base.arcSource(a);
+			int t = this.base.arcTarget(a);
+			if (s != t) this.addEdge(s, t, this.base.arcCost(a, 0), -1, a);
+		}
+		this.witnessQueue = new DaryHeap(n);
+		this.witnessDist = new int[n];
+		this.witnessStamp = new int[n];
+
+		//---contract in the order of priority, updated lazily
+		int[] deletedNeighbors = new int[n];
+		int[] level = new int[n]; //---depth in the hierarchy of the contracted neighbors
+		DaryHeap queue = new DaryHeap(n);
+		for (int v = 0; v < n; v++) queue.push(v, this.priority(v, deletedNeighbors, level));
+		int next = 0;
+		while (!queue.isEmpty()) {
+			int v = queue.pop();
+			int p = this.priority(v, deletedNeighbors, level);
+			if (!queue.isEmpty() && p > queue.minKey()) {
+				queue.push(v, p);
+				continue;
+			}
+			this.shortcuts(v, true);
+			this.rank[v] = next++;
+			//---the neighbors drop their edges to v
+			for (int i = 0; i < this.outSize[v]; i++) {
+				int e = this.outEdges[v][i];
+				int w = this.edgeTo[e];
+				deletedNeighbors[w]++;
+				level[w] = Math.max(level[w], level[v] + 1);
+				this.inSize[w] = remove(this.inEdges[w], this.inSize[w], e);
+			}
+			for (int i = 0; i < this.inSize[v]; i++) {
+				int e = this.inEdges[v][i];
+				int u = this.edgeFrom[e];
+				deletedNeighbors[u]++;
+				level[u] = Math.max(level[u], level[v] + 1);
+				this.outSize[u] = remove(this.outEdges[u], this.outSize[u], e);
+			}
+		}
+		this.buildSearchGraph();
+		this.outEdges = null;
+		this.inEdges = null;
+		this.witnessQueue = null;
+		this.witnessDist = null;
+		this.witnessStamp = null;
+		this.dominated = null;
+	}
+
+	/**
+	 * Remove edge e from the first size entries of edges.
+	 *
+	 * @return the new size.
+	 */
+	private static int remove(int[] edges, int size, int e) {
+		for (int i = 0; i < size; i++) {
+			if (edges[i] == e) {
+				edges[i] = edges[--size];
+				break;
+			}
+		}
+		return size;
+	}
+
+	private int priority(int v, int[] deletedNeighbors, int[] level) {
+		return 2 * (this.shortcuts(v, false) - this.outSize[v] - this.inSize[v]) + deletedNeighbors[v] + level[v];
+	}
+
+	/**
+	 * Find the shortcuts needed to contract v, and add them if add is set.
+	 *
+	 * @return the number of shortcuts.
+	 */
+	private int shortcuts(int v, boolean add) {
+		int count = 0;
+		for (int i = 0; i < this.inSize[v]; i++) {
+			int e1 = this.inEdges[v][i];
+			int u = this.edgeFrom[e1];
+			int limit = -1;
+			for (int j = 0; j < this.outSize[v]; j++) {
+				int e2 = this.outEdges[v][j];
+				int w = this.edgeTo[e2];
+				if (w != u)
+					limit = Math.max(limit, this.edgeCost[e1] + this.edgeCost[e2]);
+			}
+			if (limit < 0) continue;
+			this.witnessSearch(u, v, limit, add ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+			for (int j = 0; j < this.outSize[v]; j++) {
+				int e2 = this.outEdges[v][j];
+				int w = this.edgeTo[e2];
+				if (w == u) continue;
+				int cost = this.edgeCost[e1] + this.edgeCost[e2];
+				if (this.witnessDistance(w) <= cost) continue;
+				count++;
+				if (add) {
+					this.addShortcut(u, w, cost, e1, e2);
+					//---a later shortcut from u may use this one as witness
+					this.witnessDist[w] = cost;
+					this.witnessStamp[w] = this.witnessEpoch;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Dijkstra from u among the vertices not contracted yet, avoiding
+	 * skip, up to distance limit or settleLimit settled vertices.
+	 */
+	private void witnessSearch(int u, int skip, int limit, int settleLimit) {
+		if (++this.witnessEpoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.witnessStamp, 0);
+			this.witnessEpoch = 1;
+		}
+		DaryHeap q = this.witnessQueue;
+		q.clear(this.n);
+		this.witnessDist[u] = 0;
+		this.witnessStamp[u] = this.witnessEpoch;
+		q.push(u, 0);
+		int settled = 0;
+		while (!q.isEmpty() && q.minKey() <= limit && settled++ < settleLimit) {
+			int x = q.pop();
+			int dx = this.witnessDist[x];
+			for (int i = 0; i < this.outSize[x]; i++) {
+				int e = this.outEdges[x][i];
+				int y = this.edgeTo[e];
+				if (y == skip) continue;
+				int d = dx + this.edgeCost[e];
+				if (d < this.witnessDistance(y)) {
+					this.witnessDist[y] = d;
+					this.witnessStamp[y] = this.witnessEpoch;
+					q.push(y, d);
+				}
+			}
+		}
+	}
+
+	private int witnessDistance(int v) {
+		return this.witnessStamp[v] == this.witnessEpoch ? this.witnessDist[v] : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Add a shortcut, replacing a longer edge between the same vertices;
+	 * the replaced edge stays in the edge table for unpacking only.
+	 */
+	private void addShortcut(int from, int to, int cost, int c1, int c2) {
+		for (int i = 0; i < this.outSize[from]; i++) {
+			int e = this.outEdges[from][i];
+			if (this.edgeTo[e] == to) {
+				if (this.edgeCost[e] <= cost) return;
+				this.outSize[from] = remove(this.outEdges[from], this.outSize[from], e);
+				this.inSize[to] = remove(this.inEdges[to], this.inSize[to], e);
+				this.dominated.set(e);
+				break;
+			}
+		}
+		this.addEdge(from, to, cost, c1, c2);
+	}
+
+	private void addEdge(int from, int to, int cost, int c1, int c2) {
+		int e = this.edgeCount++;
+		if (e == this.edgeFrom.length) {
+			int capacity = 2 * e;
+			this.edgeFrom = Arrays.copyOf(this.edgeFrom, capacity);
+			this.edgeTo = Arrays.copyOf(this.edgeTo, capacity);
+			this.edgeCost = Arrays.copyOf(this.edgeCost, capacity);
+			this.child1 = Arrays.copyOf(this.child1, capacity);
+			this.child2 = Arrays.copyOf(this.child2, capacity);
+		}
+		this.edgeFrom[e] = from;
+		this.edgeTo[e] = to;
+		this.edgeCost[e] = cost;
+		this.child1[e] = c1;
+		this.child2[e] = c2;
+		if (this.outSize[from] == this.outEdges[from].length)
+			this.outEdges[from] = Arrays.copyOf(this.outEdges[from], 2 * this.outSize[from]);
+		this.outEdges[from][this.outSize[from]++] = e;
+		if (this.inSize[to] == this.inEdges[to].length)
+			this.inEdges[to] = Arrays.copyOf(this.inEdges[to], 2 * this.inSize[to]);
+		this.inEdges[to][this.inSize[to]++] = e;
+	}
+
+	/**
+	 * Split the edges into upward edges, by source, and downward edges,
+	 * by target.
+	 */
+	private void buildSearchGraph() {
+		this.upOffsets = new int[this.n + 1];
+		this.downOffsets = new int[this.n + 1];
+		for (int e = 0; e < this.edgeCount; e++) {
+			if (this.dominated.get(e)) continue;
+			if (this.rank[this.edgeFrom[e]] < this.rank[this.edgeTo[e]]) this.upOffsets[this.edgeFrom[e] + 1]++;
+			else this.downOffsets[this.edgeTo[e] + 1]++;
+		}
+		for (int v = 0; v < this.n; v++) {
+			this.upOffsets[v + 1] += this.upOffsets[v];
+			this.downOffsets[v + 1] += this.downOffsets[v];
+		}
+		this.upEdges = new int[this.upOffsets[this.n]];
+		this.downEdges = new int[this.downOffsets[this.n]];
+		int[] up = Arrays.copyOf(this.upOffsets, this.n);
+		int[] down = Arrays.copyOf(this.downOffsets, this.n);
+		for (int e = 0; e < this.edgeCount; e++) {
+			if (this.dominated.get(e)) continue;
+			if (this.rank[this.edgeFrom[e]] < this.rank[this.edgeTo[e]]) this.upEdges[up[this.edgeFrom[e]]++] = e;
+			else this.downEdges[down[this.edgeTo[e]]++] = e;
+		}
+	}
+
+	/**
+	 * Stall-on-demand: v need not be relaxed if a vertex of higher rank
+	 * reached by the same search leads to v by a shorter path, since the 
+	 * shortest path to v then goes down from that vertex.
+	 */
+	private boolean stalled(int v, int dv, SearchWorkspace ws, boolean forward) {
+		int[] offsets = forward ? this.downOffsets : this.upOffsets;
+		int[] edges = forward ? this.downEdges : this.upEdges;
+		for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+			int e = edges[i];
+			int x = forward ? this.edgeFrom[e] : this.edgeTo[e];
+			int dx = ws.arrivalTime(x);
+			if (dx < Integer.MAX_VALUE && dx + this.edgeCost[e] < dv) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of vertices of the hierarchy; queries are only
+	 *         possible between these.
+	 */
+	public int vertexCount() {
+		return this.n;
+	}
+
+	/**
+	 * Shortest path from s to t. Labels of the workspaces hold distances
+	 * and, as parent, the edge that reached the vertex.
+	 */
+	public Gap query(int s, int t, int startTime) {
+		SearchWorkspace fw = SearchWorkspace.start(this.n);
+		SearchWorkspace bw = SearchWorkspace.startBackward(this.n);
+		VertexQueue fq = fw.heap();
+		VertexQueue bq = bw.heap();
+		fw.reach(s, 0, 0, -1);
+		fq.push(s, 0);
+		bw.reach(t, 0, 0, -1);
+		bq.push(t, 0);
+		int best = (s == t) ? 0 : Integer.MAX_VALUE;
+		int meet = (s == t) ? s : Vertex.INVALID_ID;
+
+		while (true) {
+			boolean forward = !fq.isEmpty() && fq.minKey() < best;
+			boolean backward = !bq.isEmpty() && bq.minKey() < best;
+			if (!forward && !backward) break;
+			if (forward && backward) forward = fq.minKey() <= bq.minKey();
+			SearchWorkspace ws = forward ? fw : bw;
+			SearchWorkspace other = forward ? bw : fw;
+			VertexQueue q = forward ? fq : bq;
+			int v = q.pop();
+			int dv = ws.arrivalTime(v);
+			if (other.arrivalTime(v) < Integer.MAX_VALUE && dv + other.arrivalTime(v) < best) {
+				best = dv + other.arrivalTime(v);
+				meet = v;
+			}
+			int[] offsets = forward ? this.upOffsets : this.downOffsets;
+			int[] edges = forward ? this.upEdges : this.downEdges;
+			if (this.stalled(v, dv, ws, forward)) continue;
+			for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int e = edges[i];
+				int w = forward ? this.edgeTo[e] : this.edgeFrom[e];
+				int d = dv + this.edgeCost[e];
+				if (d < ws.arrivalTime(w)) {
+					ws.reach(w, d, 0, e);
+					q.push(w, d);
+				}
+			}
+		}
+
+		Gap result = new Gap();
+		result.start = s;
+		if (meet == Vertex.INVALID_ID) {
+			// unreachable
+			result.end = Vertex.INVALID_ID;
+			result.SPCost = Integer.MAX_VALUE;
+			result.collectedValue = 0;
+			return result;
+		}
+		//---edges of the hierarchy from s to t
+		int[] path = new int[8];
+		int size = 0;
+		for (int v = meet; fw.parent(v) != -1; v = this.edgeFrom[fw.parent(v)]) {
+			if (size == path.length) path = Arrays.copyOf(path, 2 * size);
+			path[size++] = fw.parent(v);
+		}
+		for (int i = 0, j = size - 1; i < j; i++, j--) {
+			int x = path[i];
+			path[i] = path[j];
+			path[j] = x;
+		}
+		for (int v = meet; bw.parent(v) != -1; v = this.edgeTo[bw.parent(v)]) {
+			if (size == path.length) path = Arrays.copyOf(path, 2 * size);
+			path[size++] = bw.parent(v);
+		}
+
+		result.end = t;
+		result.vexIDList.add(s);
+		int value = 0;
+		int[] stack = new int[8];
+		for (int i = 0; i < size; i++) {
+			int top = 0;
+			stack[top++] = path[i];
+			while (top > 0) {
+				int e = stack[--top];
+				if (this.child1[e] < 0) {
+					result.vexIDList.add(this.edgeTo[e]);
+					value += this.base.arcValue(this.child2[e]);
+					continue;
+				}
+				if (top + 2 > stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);
+				stack[top++] = this.child2[e];
+				stack[top++] = this.child1[e];
+			}
+		}
+		result.SPCost = best;
+		result.collectedValue = value;
+		result.actualStarttime = startTime;
+		return result;
+	}
+}
@@ -0,0 +1,96 @@
+package greedLS;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Vertex coordinates in primitive arrays, indexed by vertex ID, for the
+ * distance computations of the arc selection (GreedLS.calEuclideanCriteria).
+ *
+ * EARTH treats (lat, lng) as degrees and returns great-circle distances
+ * in meters, with the radians and cos(lat) of every vertex computed once
+ * at load time. PLANAR treats them as plane coordinates (e.g., the grid
+ * positions written by algo.py) and returns Euclidean distances in the
+ * same unit.
+ */
+public class Coordinates {
+	public static final String EARTH = "EARTH";
+	public static final String PLANAR = "PLANAR";
+
+	private static final double PI = 3.1415926; //as in GreedLS.EarthDistance
+	private static final double EARTH_DIAMETER = 2 * 6371 * 1000; //meter
+
+	private int size;
+	/* Degrees, or plane coordinates */
+	private double[] lat;
+	private double[] lng;
+	/* Radians and cosine of the latitude */
+	private double[] latRad;
+	private double[] lngRad;
+	private double[] cosLat;
+
+	public Coordinates(List<Vertex> vertices) {
+		int n = vertices.size();
+		this.lat = new double[n];
+		this.lng = new double[n];
+		this.latRad = new double[n];
+		this.lngRad = new double[n];
+		this.cosLat = new double[n];
+		for (Vertex v : vertices) this.add(v.getLat(), v.getLng());
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Append the coordinates of the next vertex.
+	 */
+	public void add(double plat, double plng) {
+		if (this.size == this.lat.length) {
+			int capacity = Math.max(16, this.size * 2);
+			this.lat = Arrays.copyOf(this.lat, capacity);
+			this.lng = Arrays.copyOf(this.lng, capacity);
+			this.latRad = Arrays.copyOf(this.latRad, capacity);
+			this.lngRad = Arrays.copyOf(this.lngRad, capacity);
+			this.cosLat = Arrays.copyOf(this.cosLat, capacity);
+		}
+		int v = this.size++;
+		this.lat[v] = plat;
+		this.lng[v] = plng;
+		this.latRad[v] = plat * PI / 180;
+		this.lngRad[v] = plng * PI / 180;
+		this.cosLat[v] = Math.cos(this.latRad[v]);
+	}
+
+	/**
+	 * @return the distance between vertices p and q, see the class comment.
+	 */
+	public double distance(String mode, int p, int q) {
+		return PLANAR.equals(mode) ? this.planarDistance(p, q) : this.earthDistance(p, q);
+	}
+
+	/**
+	 * Same as GreedLS.EarthDistance on the coordinates of p and q [meter].
+	 */
+	public double earthDistance(int p, int q) {
+		double sinLat = Math.sin((this.latRad[p] - this.latRad[q]) / 2);
+		double sinLng = Math.sin((this.lngRad[p] - this.lngRad[q]) / 2);
+		return EARTH_DIAMETER * Math.asin(Math.sqrt(sinLat * sinLat
+				+ this.cosLat[p] * this.cosLat[q] * sinLng * sinLng));
+	}
+
+	public double planarDistance(int p, int q) {
+		return Math.sqrt(this.planarDistanceSq(p, q));
+	}
+
+	/**
+	 * Squared plane distance, enough to compare distances.
+	 */
+	public double planarDistanceSq(int p, int q) {
+		double dx = this.lng[p] - this.lng[q];
+		double dy = this.lat[p] - this.lat[q];
+		return dx * dx + dy * dy;
+	}
+}
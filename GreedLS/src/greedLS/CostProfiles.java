@@ -0,0 +1,164 @@
+package greedLS;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Shared pool of time-dependent arc costs.
+ *
+ * An arc whose travel time is the same for the whole day (F) keeps its
+ * cost directly in the cost array of CSRGraph (a value >= 0). For an arc
+ * with variable travel time (V) the cost array holds ~offset (a negative
+ * value): pool[offset] is the number k of 15-minute intervals listed in
+ * the file and pool[offset+1 .. offset+k] are their costs. Intervals after
+ * the k-th use the last cost. Identical profiles are stored once. The
+ * costs are evaluated with waiting, which makes them FIFO, see cost().
+ */
+public class CostProfiles {
+	/* Number of 15-minute intervals, see GreedLS.TimeCost2Idx */
+	public static final int TIME_SLOTS = 60;
+
+	private int[] pool = new int[64];
+	private int size = 0;
+	private Map<Profile, Integer> index = new HashMap<Profile, Integer>();
+
+	/**
+	 * Key of the deduplication index: a profile stored in the pool.
+	 */
+	private class Profile {
+		final int offset;
+
+		Profile(int offset) {
+			this.offset = offset;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = 1;
+			for (int i = 0; i <= CostProfiles.this.pool[this.offset]; i++)
+				h = 31 * h + CostProfiles.this.pool[this.offset + i];
+			return h;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			int other = ((Profile) o).offset;
+			int[] p = CostProfiles.this.pool;
+			for (int i = 0; i <= p[this.offset]; i++)
+				if (p[this.offset + i] != p[other + i]) return false;
+			return true;
+		}
+	}
+
+	/**
+	 * Add the costs of the first k intervals of an arc.
+	 *
+	 * @return the encoded cost to store in the cost array.
+	 */
+	public int add(int[] costs, int k) {
+		for (int i = 0; i < k; i++)
+			if (costs[i] < 0) throw new IllegalArgumentException("negative travel time " + costs[i]);
+		boolean fixed = true;
+		for (int i = 1; i < k && fixed; i++) fixed = costs[i] == costs[0];
+		if (fixed) return costs[0];
+		if (k > TIME_SLOTS) k = TIME_SLOTS;
+
+		if (this.size + k + 1 > this.pool.length)
+			this.pool = Arrays.copyOf(this.pool, Math.max(this.size + k + 1, this.pool.length * 2));
+		int offset = this.size;
+		this.pool[offset] = k;
+		System.arraycopy(costs, 0, this.pool, offset + 1, k);
+		Integer existing = this.index.get(new Profile(offset));
+		if (existing != null) return ~existing;
+		this.index.put(new Profile(offset), offset);
+		this.size += k + 1;
+		return ~offset;
+	}
+
+	/**
+	 * Add a profile from another pool.
+	 *
+	 * @return the encoded cost in this pool.
+	 */
+	public int addEncoded(int[] otherPool, int encoded) {
+		if (encoded >= 0) return encoded;
+		int offset = ~encoded;
+		return this.add(Arrays.copyOfRange(otherPool, offset + 1, offset + 1 + otherPool[offset]),
+				otherPool[offset]);
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(this.pool, this.size);
+	}
+
+	/**
+	 * Convert time to the index of its 15-minute interval.
+	 */
+	public static int slot(int time) {
+		int idx = time / GreedLS.costGranularity;
+		if (idx >= TIME_SLOTS) idx = TIME_SLOTS - 1;
+		if (idx < 0) idx = 0;
+		return idx;
+	}
+
+	/**
+	 * @return the travel time of an arc entered at time, waiting at its
+	 *         source for a later interval if that arrives earlier.
+	 *
+	 * The costs of the intervals alone are not FIFO: if the cost drops by
+	 * more than the time left to the next interval, leaving later arrives
+	 * earlier, and the label-setting searches (FindTDSP, Reachability)
+	 * would return arrival times that are too late. With waiting, the
+	 * arrival time time + cost(time) never decreases with time.
+	 */
+	public static int cost(int[] pool, int encoded, int time) {
+		if (encoded >= 0) return encoded;
+		int offset = ~encoded;
+		int k = pool[offset];
+		int s = slot(time);
+		int best = pool[offset + 1 + (s < k ? s : k - 1)];
+		//---intervals after the k-th have the cost of the k-th
+		for (int next = s + 1; next < k; next++) {
+			long wait = (long) next * GreedLS.costGranularity - time;
+			if (wait >= best) break;
+			best = (int) Math.min(best, wait + pool[offset + 1 + next]);
+		}
+		return best;
+	}
+
+	/**
+	 * @return the smallest travel time of an arc over the whole day.
+	 */
+	public static int minCost(int[] pool, int encoded) {
+		if (encoded >= 0) return encoded;
+		int offset = ~encoded;
+		int min = Integer.MAX_VALUE;
+		for (int i = 1; i <= pool[offset]; i++) min = Math.min(min, pool[offset + i]);
+		return min;
+	}
+
+	/**
+	 * @return the latest time to enter an arc and leave it no later than
+	 *         arrival, or Integer.MIN_VALUE if there is none; the inverse
+	 *         of cost(), waiting included.
+	 */
+	public static int latestDeparture(int[] pool, int encoded, int arrival) {
+		if (encoded >= 0) return arrival - encoded;
+		int offset = ~encoded;
+		int k = pool[offset];
+		//---earliest arrival when leaving at the start of a later interval
+		long waiting = Long.MAX_VALUE;
+		for (int s = slot(arrival); s >= 0; s--) {
+			int c = pool[offset + 1 + (s < k ? s : k - 1)];
+			long start = (long) s * GreedLS.costGranularity;
+			long end = (s == TIME_SLOTS - 1) ? arrival : Math.min(start + GreedLS.costGranularity - 1, arrival);
+			if (waiting <= arrival) return (int) end;
+			long t = (long) arrival - c;
+			if (t >= start) return (int) Math.min(t, end);
+			waiting = Math.min(waiting, start + c);
+		}
+		return Integer.MIN_VALUE;
+	}
+}
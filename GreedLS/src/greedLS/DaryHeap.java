@@ -0,0 +1,151 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Indexed d-ary min-heap of vertices 0..capacity-1 with int keys and
+ * decrease-key, for the Dijkstra-style searches.
+ *
+ * Every vertex is in the heap at most once, so the heap never holds more
+ * than capacity entries, and no object is created per operation. Keys are
+ * compared, never subtracted, so any int key is safe.
+ */
+public class DaryHeap implements VertexQueue {
+	public static final int DEFAULT_ARITY = 4;
+
+	private final int arity;
+	private int size = 0;
+	/* Heap-ordered vertices and their keys */
+	private int[] items;
+	private int[] keys;
+	/* Position of each vertex in items, or -1 */
+	private int[] pos;
+
+	public DaryHeap(int arity, int capacity) {
+		if (arity < 2) throw new IllegalArgumentException("arity " + arity);
+		this.arity = arity;
+		this.items = new int[capacity];
+		this.keys = new int[capacity];
+		this.pos = new int[capacity];
+		Arrays.fill(this.pos, -1);
+	}
+
+	public DaryHeap(int capacity) {
+		this(DEFAULT_ARITY, capacity);
+	}
+
+	/**
+	 * Remove all the vertices and allow vertices 0..capacity-1.
+	 */
+	@Override
+	public void clear(int capacity) {
+		for (int i = 0; i < this.size; i++) this.pos[this.items[i]] = -1;
+		this.size = 0;
+		if (this.pos.length < capacity) {
+			int c = Math.max(capacity, this.pos.length + (this.pos.length >> 3));
+			this.items = new int[c];
+			this.keys = new int[c];
+			this.pos = new int[c];
+			Arrays.fill(this.pos, -1);
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean contains(int v) {
+		return this.pos[v] >= 0;
+	}
+
+	/**
+	 * @return the key of v; v must be in the heap.
+	 */
+	@Override
+	public int key(int v) {
+		return this.keys[this.pos[v]];
+	}
+
+	/**
+	 * @return the smallest key; the heap must not be empty.
+	 */
+	@Override
+	public int minKey() {
+		return this.keys[0];
+	}
+
+	/**
+	 * Insert v with key, or lower the key of v if it is in the heap
+	 * with a larger key.
+	 */
+	@Override
+	public void push(int v, int key) {
+		int i = this.pos[v];
+		if (i < 0) {
+			i = this.size++;
+		} else if (key >= this.keys[i]) {
+			return;
+		}
+		this.siftUp(i, v, key);
+	}
+
+	/**
+	 * Remove the vertex with the smallest key.
+	 *
+	 * @return the vertex.
+	 */
+	@Override
+	public int pop() {
+		int top = this.items[0];
+		this.pos[top] = -1;
+		int last = --this.size;
+		if (last > 0) this.siftDown(0, this.items[last], this.keys[last]);
+		return top;
+	}
+
+	private void siftUp(int i, int v, int key) {
+		while (i > 0) {
+			int parent = (i - 1) / this.arity;
+			int pk = this.keys[parent];
+			if (pk <= key) break;
+			this.move(this.items[parent], pk, i);
+			i = parent;
+		}
+		this.move(v, key, i);
+	}
+
+	private void siftDown(int i, int v, int key) {
+		int n = this.size;
+		while (true) {
+			int first = i * this.arity + 1;
+			if (first >= n) break;
+			int last = Math.min(first + this.arity, n);
+			int best = first;
+			int bestKey = this.keys[first];
+			for (int c = first + 1; c < last; c++) {
+				if (this.keys[c] < bestKey) {
+					best = c;
+					bestKey = this.keys[c];
+				}
+			}
+			if (key <= bestKey) break;
+			this.move(this.items[best], bestKey, i);
+			i = best;
+		}
+		this.move(v, key, i);
+	}
+
+	private void move(int v, int key, int i) {
+		this.items[i] = v;
+		this.keys[i] = key;
+		this.pos[v] = i;
+	}
+}
@@ -0,0 +1,41 @@
+package greedLS;
+
+
+/**
+ * Result of a one-to-many or many-to-one search, see FindTDSP.oneToMany
+ * and FindTDSP.manyToOne: the travel time and collected value of the
+ * shortest path for each of the requested vertices, in request order.
+ */
+public class Distances {
+	private final int[] cost;
+	private final int[] value;
+
+	Distances(int size) {
+		this.cost = new int[size];
+		this.value = new int[size];
+	}
+
+	void set(int i, int cost, int value) {
+		this.cost[i] = cost;
+		this.value[i] = value;
+	}
+
+	public int size() {
+		return this.cost.length;
+	}
+
+	/**
+	 * @return the travel time for the i-th vertex, or Integer.MAX_VALUE if
+	 *         it is not reachable within the budget of the search.
+	 */
+	public int cost(int i) {
+		return this.cost[i];
+	}
+
+	/**
+	 * @return the value collected along the path of the i-th vertex.
+	 */
+	public int value(int i) {
+		return this.value[i];
+	}
+}
@@ -5,93 +5,236 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 
 public class FindTDSP {
 	
+	  /* Point-to-point search modes, see tdsp(int, int, int, String) */
+	  public static final String UNIDIRECTIONAL = "UNIDIRECTIONAL";
+	  public static final String BIDIRECTIONAL = "BIDIRECTIONAL";
+	  public static final String ASTAR = "ASTAR";
+	  public static final String CONTRACTION = "CONTRACTION";
+	  
+	  /* Mode of the point-to-point searches of the insertion loop and ArrageSolution. 
+	     The other modes find paths of the same cost, but among paths of equal 
+	     cost they may return another one, with another collected value. */
+	  public static String pointToPointMode = UNIDIRECTIONAL;
+	  
+	  /* Cache of the point-to-point searches, see PathCache; null disables it */
+	  public static PathCache pathCache = new PathCache(PathCache.DEFAULT_CAPACITY);
+	  
+	/**
+	   * This tdsp use the settled flags of a SearchWorkspace to indicate 
+	   * whether a node has been visited so that we do not need to scan 
+	   * the priority queue before updating it.
+	   * 
+	   * @modified Yaguang Li <yaguang@usc.edu>
+	   * 
+	   * @param startId start node ID
+	   * @param endId end node ID
+	   * @param startTime milliseconds from 00:00
+	   * @return
+	   */
+	  public Gap tdsp(int startId, int endId, int startTime) {
+	    HashSet<Integer> endIds = new HashSet<Integer>();
+	    endIds.add(endId);
+	    return tdsp(startId, endIds, startTime);
+	  }
+
 	  /**
-	   * Class Node. Cost and ArrTime are used interchangablely, 
-	   * I kept them for compatibility with
-	   * Ugur's <demiryur@usc.edu> code dist is of no use.
+	   * Finds the shortest path from startId to endId with the given mode.
+	   * BIDIRECTIONAL runs a forward search from startId and a backward 
+	   * search from endId; it needs travel times that do not depend on 
+	   * the time of day, so a time-dependent network falls back to 
+	   * UNIDIRECTIONAL. ASTAR directs the search towards endId with the
+	   * lower bounds of the landmarks and falls back to UNIDIRECTIONAL 
+	   * when there are none, see Graph.landmarkCount. CONTRACTION queries
+	   * the contraction hierarchy of a static graph and falls back to 
+	   * BIDIRECTIONAL without one, or for the vertex copies of a query.
+	   * The result comes from pathCache if it holds the pair for the same
+	   * mode (and, on a time-dependent network, the same startTime), and 
+	   * is added to it otherwise.
 	   * 
-	   * @author Dingxiong <dengdx@gmail.com>
+	   * @param startId start node ID
+	   * @param endId end node ID
+	   * @param startTime milliseconds from 00:00
+	   * @param mode UNIDIRECTIONAL, BIDIRECTIONAL, ASTAR or CONTRACTION
+	   * @return
 	   */
-	  class TDSPNode implements Comparable<TDSPNode> {
-	    TDSPNode(int id, int c, int t, int val) {
-	      nodeId = id;
-	      cost = c;
-	      arrTime = t;
-	      sofarValue = val;
-	      // dist = new Vector(10, 5);
+	  public Gap tdsp(int startId, int endId, int startTime, String mode) {
+	    PathCache cache = pathCache;
+	    if (cache == null) return search(startId, endId, startTime, mode);
+	    Graph graph = GreedLS.graph;
+	    Gap result = cache.get(graph.network, startId, endId, startTime, mode);
+	    if (result == null) {
+	      result = search(startId, endId, startTime, mode);
+	      cache.put(graph.network, result, endId, startTime, mode, graph.base.vertexCount());
 	    }
+	    return result;
+	  }
 
-	    TDSPNode(int id, int t, int val) {
-	      nodeId = id;
-	      cost = t;
-	      arrTime = t;
-	      sofarValue = val;
-	      // dist = new Vector(10, 5);
+	  private Gap search(int startId, int endId, int startTime, String mode) {
+	    if (CONTRACTION.equals(mode)) {
+	      ContractionHierarchy ch = GreedLS.graph.hierarchy;
+	      if (ch != null && startId < ch.vertexCount() && endId < ch.vertexCount()) {
+	        return ch.query(startId, endId, startTime);
+	      }
+	      mode = BIDIRECTIONAL;
 	    }
-
-	    public int getNodeId() {
-	      return nodeId;
+	    if (BIDIRECTIONAL.equals(mode) && !GreedLS.graph.network.isTimeDependent()) {
+	      return bidirectional(startId, endId, startTime);
 	    }
-
-	    public int getCost() {
-	      return cost;
+	    if (ASTAR.equals(mode) && GreedLS.graph.landmarks != null) {
+	      return astar(startId, endId, startTime);
 	    }
+	    return tdsp(startId, endId, startTime);
+	  }
 
-	    public int getArrTime() {
-	      return arrTime;
-	    }
-	    
-	    public int getSofarValue(){
-	    	return sofarValue;
-	    }
+	  /**
+	   * A* search: the queue key of a vertex is its arrival time plus a 
+	   * lower bound of the travel time to endId. The bounds are consistent,
+	   * so a settled vertex is final, as in Dijkstra; vertices that cannot
+	   * reach endId are not queued.
+	   */
+	  private Gap astar(int startId, int endId, int startTime) {
+	    Graph graph = GreedLS.graph;
+	    RoadNetwork network = graph.network;
+	    SearchWorkspace ws = SearchWorkspace.start(network.vertexCount());
+	    VertexQueue priorityQ = ws.heap();
+	    boolean found = false;
 
-	    public void setArrTime(int t) {
-	      arrTime = t;
+	    ws.reach(startId, startTime, 0, -1);
+	    if (graph.lowerBound(startId, endId) != Landmarks.INFINITY) {
+	      priorityQ.push(startId, startTime);
 	    }
-
-	    public void setCost(int t) {
-	      cost = t;
+	    while (!priorityQ.isEmpty()) {
+	      int curId = priorityQ.pop();
+	      int curTime = ws.arrivalTime(curId);
+	      ws.settle(curId);
+	      if (curId == endId) {
+	        found = true;
+	        break;
+	      }
+	      for (int a = network.firstOut(curId); a != RoadNetwork.NO_ARC; a = network.nextOut(curId, a)) {
+	        int node = network.arcTarget(a);
+	        if (ws.isSettled(node))
+	          continue;
+	        int time = curTime + network.arcCost(a, curTime);
+	        if (time < ws.arrivalTime(node)) {
+	          int bound = graph.lowerBound(node, endId);
+	          if (bound == Landmarks.INFINITY)
+	            continue;
+	          ws.reach(node, time, ws.collectedValue(curId) + network.arcValue(a), curId);
+	          priorityQ.push(node, (int) Math.min((long) time + bound, Integer.MAX_VALUE));
+	        }
+	      }
 	    }
-	    
-	    public void setValue(int val) {
-	    	sofarValue = val;
+
+	    Gap result = new Gap();
+	    result.start = startId;
+	    if (found) {
+	      result.end = endId;
+	      for (int curId = endId; curId != -1; curId = ws.parent(curId)) {
+	        result.vexIDList.add(curId);
+	      }
+	      Collections.reverse(result.vexIDList);
+	      result.SPCost = ws.arrivalTime(endId) - startTime;
+	      result.collectedValue = ws.collectedValue(endId);
+	      result.actualStarttime = startTime;
+	    } else {
+	      // unreachable
+	      result.end = Vertex.INVALID_ID;
+	      result.SPCost = Integer.MAX_VALUE;
+	      result.collectedValue = 0;
 	    }
+	    return result;
+	  }
 
-	    private int nodeId, cost, arrTime, sofarValue;
+	  /**
+	   * Bidirectional Dijkstra on a network with static travel times.
+	   * The two searches alternate, expanding the one with the smaller
+	   * queue key, and stop as soon as the sum of both keys reaches the 
+	   * best path found so far through a vertex reached by both.
+	   */
+	  private Gap bidirectional(int startId, int endId, int startTime) {
+	    RoadNetwork network = GreedLS.graph.network;
+	    int len = network.vertexCount();
+	    SearchWorkspace fw = SearchWorkspace.start(len); // arrival times from startId
+	    SearchWorkspace bw = SearchWorkspace.startBackward(len); // travel times to endId
+	    VertexQueue fq = fw.heap();
+	    VertexQueue bq = bw.heap();
 
-	    // private Vector dist; // denoted by 'c' in the algorithm
+	    fw.reach(startId, startTime, 0, -1);
+	    fq.push(startId, startTime);
+	    bw.reach(endId, 0, 0, -1);
+	    bq.push(endId, 0);
+	    long best = (startId == endId) ? 0 : Long.MAX_VALUE; // shortest travel time found so far
+	    int meet = (startId == endId) ? startId : Vertex.INVALID_ID;
 
-	    @Override
-	    public int compareTo(TDSPNode o) {
-	      // TODO Auto-generated method stub
-	      return this.cost - o.cost;
+	    while (!fq.isEmpty() && !bq.isEmpty()) {
+	      long fkey = (long) fq.minKey() - startTime;
+	      long bkey = bq.minKey();
+	      if (fkey + bkey >= best) break; // stopping rule
+	      if (fkey <= bkey) {
+	        int curId = fq.pop();
+	        int curTime = fw.arrivalTime(curId);
+	        fw.settle(curId);
+	        for (int a = network.firstOut(curId); a != RoadNetwork.NO_ARC; a = network.nextOut(curId, a)) {
+	          int node = network.arcTarget(a);
+	          if (fw.isSettled(node))
+	            continue;
+	          int time = curTime + network.arcCost(a, curTime);
+	          if (time < fw.arrivalTime(node)) {
+	            fw.reach(node, time, fw.collectedValue(curId) + network.arcValue(a), curId);
+	            fq.push(node, time);
+	          }
+	          if (bw.arrivalTime(node) < Integer.MAX_VALUE && (long) time - startTime + bw.arrivalTime(node) < best) {
+	            best = (long) time - startTime + bw.arrivalTime(node);
+	            meet = node;
+	          }
+	        }
+	      } else {
+	        int curId = bq.pop();
+	        int curCost = bw.arrivalTime(curId);
+	        bw.settle(curId);
+	        for (int r = network.firstIn(curId); r != RoadNetwork.NO_ARC; r = network.nextIn(curId, r)) {
+	          int node = network.inSource(r);
+	          if (bw.isSettled(node))
+	            continue;
+	          int cost = curCost + network.inCost(r, 0);
+	          if (cost < bw.arrivalTime(node)) {
+	            // the parent of a backward label is the next vertex towards endId
+	            bw.reach(node, cost, bw.collectedValue(curId) + network.inValue(r), curId);
+	            bq.push(node, cost);
+	          }
+	          if (fw.arrivalTime(node) < Integer.MAX_VALUE && (long) fw.arrivalTime(node) - startTime + cost < best) {
+	            best = (long) fw.arrivalTime(node) - startTime + cost;
+	            meet = node;
+	          }
+	        }
+	      }
 	    }
 
-	  }
-	  
-	  
-	  
-	  
-	/**
-	   * This tdsp use an array visited[] to indicate whether a node 
-	   * has been visited so that we do not need to scan the priority 
-	   * queue before updating it.
-	   * 
-	   * @modified Yaguang Li <yaguang@usc.edu>
-	   * 
-	   * @param startId start node ID
-	   * @param endId end node ID
-	   * @param startTime milliseconds from 00:00
-	   * @return
-	   */
-	  public Gap tdsp(int startId, int endId, int startTime) {
-	    HashSet<Integer> endIds = new HashSet<Integer>();
-	    endIds.add(endId);
-	    return tdsp(startId, endIds, startTime);
+	    Gap result = new Gap();
+	    result.start = startId;
+	    if (meet != Vertex.INVALID_ID) {
+	      result.end = endId;
+	      for (int curId = meet; curId != -1; curId = fw.parent(curId)) {
+	        result.vexIDList.add(curId);
+	      }
+	      Collections.reverse(result.vexIDList);
+	      for (int curId = bw.parent(meet); curId != -1; curId = bw.parent(curId)) {
+	        result.vexIDList.add(curId);
+	      }
+	      result.SPCost = (int) best;
+	      result.collectedValue = fw.collectedValue(meet) + bw.collectedValue(meet);
+	      result.actualStarttime = startTime;
+	    } else {
+	      // unreachable
+	      result.end = Vertex.INVALID_ID;
+	      result.SPCost = Integer.MAX_VALUE;
+	      result.collectedValue = 0;
+	    }
+	    return result;
 	  }
 
 	  /**
@@ -103,63 +246,41 @@ public class FindTDSP {
 	   * @return
 	   */
 	  public Gap tdsp(int startId, HashSet<Integer> endIds, int startTime) {
-	    int curTime = startTime;
-	    int curValue = 0;
-	    int len = GreedLS.graph.vertices.size();
-	    int[] arrivalTime = new int[len];
-	    int[] totalCollectedValues = new int[len];
-	    int[] parent = new int[len];
-	    boolean[] visited = new boolean[len];
+	    RoadNetwork network = GreedLS.graph.network;
+	    int len = network.vertexCount();
+	    SearchWorkspace ws = SearchWorkspace.start(len);
 
 	    int endId = Vertex.INVALID_ID;
-	    PriorityQueue<TDSPNode> priorityQ = new PriorityQueue<TDSPNode>(20);
+	    VertexQueue priorityQ = ws.heap();
 
-	    // initialize visited node, parent and arrival time of each node
-	    for (int i = 0; i < len; i++) {
-	      visited[i] = false;
-	      parent[i] = -1;
-	      arrivalTime[i] = Integer.MAX_VALUE; // indicating infinity
-	      totalCollectedValues[i] = 0;
-	    }
-	    arrivalTime[startId] = startTime;
-	    totalCollectedValues[startId] = 0;
+	    // unreached vertices have arrival time Integer.MAX_VALUE, see SearchWorkspace
+	    ws.reach(startId, startTime, 0, -1);
 
-	    // creating the starting node with nodeId = start and
-	    // arrival time = time
-	    TDSPNode curNode, s = new TDSPNode(startId, curTime, curValue);
-	    // inserting s into the priority queue
-	    priorityQ.offer(s);
-	    while ((curNode = priorityQ.poll()) != null) {
-	      int curId = curNode.getNodeId();
-	      // using visited vector
-	      if (visited[curId])
-	        continue;
-	      visited[curId] = true;
+	    // inserting the starting node into the priority queue,
+	    // keyed by arrival time
+	    priorityQ.push(startId, startTime);
+	    while (!priorityQ.isEmpty()) {
+	      int curId = priorityQ.pop();
+	      int curTime = ws.arrivalTime(curId);
+	      ws.settle(curId);
 	      if (endIds.contains(curId)) {
 	        endId = curId;
 	        break;
 	      }
-	      Map<Integer, Pair<Integer,Integer>> neighbors = 
-		                                   GreedLS.graph.adjList.getList().get(curId);
-	      if (neighbors == null)
-	        continue;
-	      for (Map.Entry<Integer, Pair<Integer,Integer>> pair : neighbors.entrySet()) {
-	        int node = pair.getKey();
-	        int curInterval = GreedLS.TimeCost2Idx(curTime);
-	        int travelTime = pair.getValue().getLeft();
-	        int gainValue = pair.getValue().getRight();
+	      for (int a = network.firstOut(curId); a != RoadNetwork.NO_ARC; a = network.nextOut(curId, a)) {
+	        int node = network.arcTarget(a);
+	        int travelTime = network.arcCost(a, curTime);
+	        int gainValue = network.arcValue(a);
 	        /**
 	         * if the node is visited, we bypass it if we find a node with updated distance, 
 			 * just insert it to the priority queue even we pop out another node with 
 			 * same id later, we know that it was visited and will ignore it. 
 	         */
-	        if (visited[node] == true)
+	        if (ws.isSettled(node))
 	          continue;
-	        if (curNode.getArrTime() + travelTime < arrivalTime[node]) {
-	          arrivalTime[node] = curNode.getArrTime() + travelTime;
-	          totalCollectedValues[node] = curNode.getSofarValue() + gainValue;
-	          parent[node] = curId;
-	          priorityQ.offer(new TDSPNode(node, arrivalTime[node], totalCollectedValues[node]));
+	        if (curTime + travelTime < ws.arrivalTime(node)) {
+	          ws.reach(node, curTime + travelTime, ws.collectedValue(curId) + gainValue, curId);
+	          priorityQ.push(node, curTime + travelTime);
 	        }
 	      }
 	    }
@@ -168,18 +289,18 @@ public class FindTDSP {
 	    Gap result = new Gap();
 	    result.start = startId;
 	    result.end = endId;
-	    if (endId != Vertex.INVALID_ID && arrivalTime[endId] < Integer.MAX_VALUE) {
+	    if (endId != Vertex.INVALID_ID && ws.arrivalTime(endId) < Integer.MAX_VALUE) {
 	      int curId = endId;
-	      int totalCost = arrivalTime[endId] - startTime;
-	      int collectedValue = totalCollectedValues[endId];
+	      int totalCost = ws.arrivalTime(endId) - startTime;
+	      int collectedValue = ws.collectedValue(endId);
 	      while (curId != -1) {
 	        result.vexIDList.add(curId);
-	        curId = parent[curId];
+	        curId = ws.parent(curId);
 	      }
 	      Collections.reverse(result.vexIDList);
 	      result.SPCost = totalCost;
 	      result.collectedValue = collectedValue;
-	      result.actualStarttime = arrivalTime[endId];
+	      result.actualStarttime = startTime;
 	    } else {
 	      // unreachable
 	      result.SPCost = Integer.MAX_VALUE;
@@ -194,108 +315,148 @@ public class FindTDSP {
 	  //---used for GreedLS Algorithm
 	  /**
 	   * Finds the shortest path from startId to a set of endIds
+	   * within the budget.
 	   * 
 	   *@modified Ying Lu <ylu720@usc.edu>
 	   *
 	   * @param startId start node id
 	   * @param endIds a set of end node ids
 	   * @param startTime milliseconds from 00:00
-	   * @return
+	   * @param budget largest travel time of a returned path
+	   * @return the paths of the end nodes reachable within the budget
 	   */
 	  public Map<Integer,Gap> tdspGreedLS(int startId, 
 	                                      Map<Integer,Pair<Integer,Integer>> endIds, 
 										  int startTime, int budget) {
-	    int curTime = startTime;
-	    int curValue = 0;
-	    int len = GreedLS.graph.vertices.size();
-	    int[] arrivalTime = new int[len];
-	    int[] totalCollectedValues = new int[len];
-	    int[] parent = new int[len];
-	    boolean[] visited = new boolean[len];
+	    int[] targets = new int[endIds.size()];
+	    int i = 0;
+	    for (int endId : endIds.keySet()) targets[i++] = endId;
+	    SearchWorkspace ws = SearchWorkspace.start(GreedLS.graph.network.vertexCount());
+	    this.forward(ws, startId, startTime, targets, budget);
+
 	    Map<Integer,Gap> Results = new HashMap<Integer,Gap>();
+	    for (int endId : targets) {
+	      if (!ws.isSettled(endId) || (long) ws.arrivalTime(endId) - startTime > budget)
+	        continue;
+	      //--- retrieve the path in the array of nextNode
+	      Gap result = new Gap();
+	      result.start = startId;
+	      result.end = endId;
+	      for (int curId = endId; curId != -1; curId = ws.parent(curId)) {
+	        result.vexIDList.add(curId);
+	      }
+	      Collections.reverse(result.vexIDList);
+	      result.SPCost = ws.arrivalTime(endId) - startTime;
+	      result.collectedValue = ws.collectedValue(endId);
+	      result.actualStarttime = startTime;
+	      Results.put(endId, result);
+	    }
+	    return Results;
+	  }
 
-	    int endId = Vertex.INVALID_ID;
-	    PriorityQueue<TDSPNode> priorityQ = new PriorityQueue<TDSPNode>(20);
+	  /**
+	   * One-to-many search: the travel times from startId, departing at 
+	   * startTime, to each of targets. The search stops as soon as every 
+	   * target is settled or the travel time exceeds the budget.
+	   * 
+	   * @param startId start node ID
+	   * @param startTime milliseconds from 00:00
+	   * @param targets end node IDs, may repeat
+	   * @param budget largest travel time of interest
+	   * @return the travel times and values, in the order of targets
+	   */
+	  public Distances oneToMany(int startId, int startTime, int[] targets, int budget) {
+	    SearchWorkspace ws = SearchWorkspace.start(GreedLS.graph.network.vertexCount());
+	    this.forward(ws, startId, startTime, targets, budget);
+	    return collect(ws, targets, startTime, budget);
+	  }
 
-	    // initialize visited node, parent and arrival time of each node
-	    for (int i = 0; i < len; i++) {
-	      visited[i] = false;
-	      parent[i] = -1;
-	      arrivalTime[i] = Integer.MAX_VALUE; // indicating infinity
-	      totalCollectedValues[i] = 0;
+	  /**
+	   * Many-to-one search: the travel times from each of sources to endId,
+	   * for the trip that arrives no later than deadline and leaves as late
+	   * as possible. On a static network this is the shortest travel time.
+	   * The backward search stops as soon as every source is settled or 
+	   * the travel time exceeds the budget.
+	   * 
+	   * @param endId end node ID
+	   * @param deadline milliseconds from 00:00
+	   * @param sources start node IDs, may repeat
+	   * @param budget largest travel time of interest
+	   * @return the travel times and values, in the order of sources
+	   */
+	  public Distances manyToOne(int endId, int deadline, int[] sources, int budget) {
+	    RoadNetwork network = GreedLS.graph.network;
+	    SearchWorkspace ws = SearchWorkspace.start(network.vertexCount());
+	    int remaining = 0;
+	    for (int v : sources) if (ws.markTarget(v)) remaining++;
+	    VertexQueue priorityQ = ws.heap();
+	    // labels hold the travel time to endId, deadline - latest departure
+	    ws.reach(endId, 0, 0, -1);
+	    priorityQ.push(endId, 0);
+	    while (remaining > 0 && !priorityQ.isEmpty() && priorityQ.minKey() <= budget) {
+	      int curId = priorityQ.pop();
+	      int curCost = ws.arrivalTime(curId);
+	      ws.settle(curId);
+	      if (ws.isTarget(curId)) remaining--;
+	      for (int r = network.firstIn(curId); r != RoadNetwork.NO_ARC; r = network.nextIn(curId, r)) {
+	        int node = network.inSource(r);
+	        if (ws.isSettled(node))
+	          continue;
+	        int ld = network.inLatestDeparture(r, deadline - curCost);
+	        if (ld == Integer.MIN_VALUE)
+	          continue;
+	        long cost = (long) deadline - ld;
+	        if (cost < ws.arrivalTime(node)) {
+	          ws.reach(node, (int) cost, ws.collectedValue(curId) + network.inValue(r), curId);
+	          priorityQ.push(node, (int) cost);
+	        }
+	      }
 	    }
-	    arrivalTime[startId] = startTime;
-	    totalCollectedValues[startId] = 0;
+	    return collect(ws, sources, 0, budget);
+	  }
 
-	    // creating the starting node with nodeId = start and
-	    // arrival time = time
-	    TDSPNode curNode, s = new TDSPNode(startId, curTime, curValue);
-	    // inserting s into the priority queue
-	    priorityQ.offer(s);
-	    while ((curNode = priorityQ.poll()) != null) {
-	      int curId = curNode.getNodeId();
-	      // using visited vector
-	      if (visited[curId])
-	        continue;
-	      visited[curId] = true;
-	      if (endIds.containsKey(curId)) {
-	        endId = curId;
-	        
-	        //--- retrieve the path in the array of nextNode
-		    Gap result = new Gap();
-		    result.start = startId;
-		    result.end = endId;
-		    if (endId != Vertex.INVALID_ID && arrivalTime[endId] < Integer.MAX_VALUE) {
-		      int resCurId = endId;
-		      int totalCost = arrivalTime[endId] - startTime;
-		      int collectedValue = totalCollectedValues[endId];
-		      while (resCurId != -1) {
-		        result.vexIDList.add(resCurId);
-		        resCurId = parent[resCurId];
-		      }
-		      Collections.reverse(result.vexIDList);
-		      result.SPCost = totalCost;
-		      result.collectedValue = collectedValue;
-		      result.actualStarttime = arrivalTime[endId];
-		    } else {
-		      // unreachable
-		      result.SPCost = Integer.MAX_VALUE;
-		      result.collectedValue = 0;
-		    }
-		    if(result.SPCost<=budget){
-		    	Results.put(endId, result);
-		    }
-	        //break;
-	      }
-	      Map<Integer, Pair<Integer,Integer>> neighbors = GreedLS.graph.adjList.getList().get(curId);
-	      if (neighbors == null)
-	        continue;
-	      for (Map.Entry<Integer, Pair<Integer,Integer>> pair : neighbors.entrySet()) {
-	        int node = pair.getKey();
-	        int curInterval = GreedLS.TimeCost2Idx(curTime);
-	        int travelTime = pair.getValue().getLeft();
-	        int gainValue = pair.getValue().getRight();
-	        /*
-	         * if the node is visited, we bypass it if we find a node with updated distance, just insert
-	         * it to the priority queue even we pop out another node with same id later, we know that it
-	         * was visited and will ignore it
-	         */
-	        if (visited[node] == true)
+	  /**
+	   * Dijkstra from startId until every target is settled or the travel
+	   * time exceeds the budget.
+	   */
+	  private void forward(SearchWorkspace ws, int startId, int startTime, int[] targets, int budget) {
+	    RoadNetwork network = GreedLS.graph.network;
+	    int remaining = 0;
+	    for (int v : targets) if (ws.markTarget(v)) remaining++;
+	    VertexQueue priorityQ = ws.heap();
+	    ws.reach(startId, startTime, 0, -1);
+	    priorityQ.push(startId, startTime);
+	    while (remaining > 0 && !priorityQ.isEmpty() && (long) priorityQ.minKey() - startTime <= budget) {
+	      int curId = priorityQ.pop();
+	      int curTime = ws.arrivalTime(curId);
+	      ws.settle(curId);
+	      if (ws.isTarget(curId)) remaining--;
+	      for (int a = network.firstOut(curId); a != RoadNetwork.NO_ARC; a = network.nextOut(curId, a)) {
+	        int node = network.arcTarget(a);
+	        if (ws.isSettled(node))
 	          continue;
-	        if (curNode.getArrTime() + travelTime < arrivalTime[node]) {
-	          arrivalTime[node] = curNode.getArrTime() + travelTime;
-	          totalCollectedValues[node] = curNode.getSofarValue() + gainValue;
-	          parent[node] = curId;
-	          priorityQ.offer(new TDSPNode(node, arrivalTime[node], totalCollectedValues[node]));
+	        int time = curTime + network.arcCost(a, curTime);
+	        if (time < ws.arrivalTime(node)) {
+	          ws.reach(node, time, ws.collectedValue(curId) + network.arcValue(a), curId);
+	          priorityQ.push(node, time);
 	        }
 	      }
 	    }
+	  }
 
-	    
-	    return Results;
+	  /**
+	   * @return the labels of the settled vertices, minus offset, within
+	   *         the budget.
+	   */
+	  private static Distances collect(SearchWorkspace ws, int[] vertices, int offset, int budget) {
+	    Distances result = new Distances(vertices.length);
+	    for (int i = 0; i < vertices.length; i++) {
+	      int v = vertices[i];
+	      long cost = ws.isSettled(v) ? (long) ws.arrivalTime(v) - offset : Long.MAX_VALUE;
+	      if (cost <= budget) result.set(i, (int) cost, ws.collectedValue(v));
+	      else result.set(i, Integer.MAX_VALUE, 0);
+	    }
+	    return result;
 	  }
-	  
-	  
-	  
 
 }
@@ -33,6 +33,21 @@ public class Gap {
 	
 	public List<Integer> vexIDList;
 	
+	/* V' and G' of the gap, see GreedLS.calculateCandidateArcSet */
+	CandidateArcSet candidateArcs;
+	
+	/* The neighbours of the gap in Solution.gapList */
+	Gap prev;
+	Gap next;
+	
+	/* The first of the gaps put in the place of this gap by 
+	   Solution.insertArc, or null */
+	Gap replacement;
+	
+	/* Solution.version when insertArc added the gap, or delayed it on a 
+	   time-dependent network */
+	int version;
+	
 	Gap(){
 		this.start = -1;
 		this.end = -1;
@@ -61,5 +76,6 @@ public class Gap {
 		this.collectedValue = 0;
 		this.actualStarttime = 0;
 		this.vexIDList.clear();
+		this.candidateArcs = null;
 	}
 }
@@ -2,11 +2,9 @@ package greedLS;
 
 import java.util.Vector;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.io.IOException;
-import java.util.List;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinTask;
 
 
 /**
@@ -22,47 +20,161 @@ public class Graph {
 	
 	/* File name of the nodes. */
 	private String nodeFile = null;
+	
+	/* File name of the binary snapshot, see GraphSnapshot. */
+	private String snapshotFile = null;
 	  
-	/* Adjacency List */
-	public AdjList adjList = null;
+	/* Adjacency List, stored as forward and reverse stars. Not modified after loading. */
+	public CSRGraph base = null;
+	
+	/* Network of the current query: base, or an overlay with vertex copies. */
+	public RoadNetwork network = null;
 	
-	/* Nodes of the graph. */
+	/* Vertices copied by the overlay of the current query. */
+	private int[] copies = new int[0];
+	
+	/* Nodes of the graph, indexed by dense vertex ID. */
 	public ArrayList<Vertex> vertices = null;
 	
+	/* Coordinates of the vertices in primitive arrays. */
+	public Coordinates coords = null;
+	
+	/* Node IDs of the input files, see VertexIdMap. */
+	public VertexIdMap ids = null;
+	
+	/* Renumbering of the vertices after loading, see VertexOrder. */
+	public static String vertexOrder = VertexOrder.NONE;
+	
+	/* File name of the landmarks, see Landmarks. */
+	private String landmarkFile = null;
+	
+	/* Lower bounds on travel times, or null if landmarkCount is 0. */
+	public Landmarks landmarks = null;
+	
+	/* Number of landmarks and how they are selected, see Landmarks. */
+	public static int landmarkCount = 0;
+	public static String landmarkSelection = Landmarks.AVOID;
+	
+	/* Shortcuts for point-to-point queries on static graphs, or null. */
+	public ContractionHierarchy hierarchy = null;
+	
+	/* Contract the graph after loading if its travel times are static, see ContractionHierarchy. */
+	public static boolean contractionHierarchy = false;
+	
 	
 	/**
-	 * Read vertices data from file
+	 * Read vertices data from file. Vertices that only appear in 
+	 * the arc file are placed at (0, 0).
 	 * 
-	 * @param filename
-	 * @throws IOException
+	 * @param nodes parsed node file
 	 */
-	private void readVertices(String filename) throws IOException {
-		vertices = new ArrayList<Vertex>(adjList.getSize());
-	    List<String> lines = Files.readAllLines(Paths.get(filename), StandardCharsets.UTF_8);
-	    for (String line : lines) {
-	    	String[] fields = line.split(",");
-	    	if (fields.length == 3) {
-	    		double lat = Double.parseDouble(fields[1]);
-	    		double lng = Double.parseDouble(fields[2]);
-	    		Vertex v = new Vertex(vertices.size(), lat, lng);
-	    		vertices.add(v);
-	    		}
+	private void readVertices(TextGraphLoader.NodeTable nodes) {
+		vertices = new ArrayList<Vertex>(ids.size());
+	    for (int i = 0; i < nodes.size; i++) {
+	    	Vertex v = new Vertex(vertices.size(), nodes.lat[i], nodes.lng[i]);
+	    	vertices.add(v);
+	    	}
+	    while (vertices.size() < ids.size()) {
+	    	vertices.add(new Vertex(vertices.size(), 0, 0));
 	    	}
 	    }
+	
+	/**
+	 * Add a virtual vertex that copies all the arcs of vertex v, for the
+	 * current query only, see OverlayNetwork.
+	 * 
+	 * @return the ID of the copy.
+	 */
+	public int addVertexCopy(int v) {
+		copies = Arrays.copyOf(copies, copies.length + 1);
+		copies[copies.length - 1] = v;
+		network = new OverlayNetwork(base, copies);
+		return base.vertexCount() + copies.length - 1;
+	}
+	
+	/**
+	 * Drop the vertex copies of the previous query.
+	 */
+	public void clearVertexCopies() {
+		copies = new int[0];
+		network = base;
+	}
+	
+	/**
+	 * @return the vertex of the loaded graph that v is or copies.
+	 */
+	public int baseVertex(int v) {
+		return v < base.vertexCount() ? v : copies[v - base.vertexCount()];
+	}
+	
+	/**
+	 * @return a lower bound of the travel time from v to t in the network
+	 *         of the current query, 0 without landmarks, see Landmarks.
+	 */
+	public int lowerBound(int v, int t) {
+		return landmarks == null ? 0 : landmarks.lowerBound(baseVertex(v), baseVertex(t));
+	}
 	  
 	
 	  private void init() {
-		    try {
-		    	adjList = new AdjList(adjFile, 0);
-		    	readVertices(nodeFile);
-		    } catch (IOException e) {
-		      throw new ExceptionInInitializerError(e);
+		    if (snapshotFile != null && GraphSnapshot.isFresh(snapshotFile, adjFile, nodeFile)) {
+		    	long start = System.currentTimeMillis();
+		    	try {
+		    		GraphSnapshot.load(this, snapshotFile);
+		    		System.out.println("Loaded snapshot " + snapshotFile + " in "
+		    				+ (System.currentTimeMillis() - start) + " ms");
+		    		prepare();
+		    		return;
+		    	} catch (IOException e) {
+		    		System.err.println(e.getMessage() + ", reading the text files instead");
+		    	}
+		    }
+		    //---parse the node file while the arc file is being parsed
+		    ForkJoinTask<TextGraphLoader.NodeTable> nodes = TextGraphLoader.readNodesAsync(nodeFile);
+		    AdjList adjList = new AdjList(adjFile, 0);
+		    TextGraphLoader.NodeTable nodeTable = nodes.join();
+		    ids = new VertexIdMap(nodeTable.ids, nodeTable.size);
+		    adjList.translate(ids);
+		    readVertices(nodeTable);
+		    base = adjList.getList(vertices.size());
+		    prepare();
+		}
+	  
+	  /**
+	   * Reorder the loaded graph and build the structures derived from it.
+	   */
+	  private void prepare() {
+		    VertexOrder.apply(this, vertexOrder);
+		    coords = new Coordinates(vertices);
+		    landmarks = Landmarks.prepare(this, landmarkFile, landmarkCount, landmarkSelection,
+		    		adjFile, nodeFile);
+		    if (contractionHierarchy && !base.isTimeDependent()) {
+		    	hierarchy = ContractionHierarchy.build(base);
 		    }
+		    network = base;
 		}
 	 
 	  public Graph(String adjFile, String nodeFile) {
+		    this(adjFile, nodeFile, null);
+		  }
+	  
+	  /**
+	   * Load the graph from the snapshot file if it is up to date,
+	   * otherwise parse the text files.
+	   */
+	  public Graph(String adjFile, String nodeFile, String snapshotFile) {
+		    this(adjFile, nodeFile, snapshotFile, null);
+		  }
+	  
+	  /**
+	   * Also load the landmarks from landmarkFile if it is up to date,
+	   * otherwise select them and write the file.
+	   */
+	  public Graph(String adjFile, String nodeFile, String snapshotFile, String landmarkFile) {
 		    this.adjFile = adjFile;
 		    this.nodeFile = nodeFile;
+		    this.snapshotFile = snapshotFile;
+		    this.landmarkFile = landmarkFile;
 		    init();
 		  }
 	  
@@ -0,0 +1,179 @@
+package greedLS;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+
+/**
+ * Binary snapshot of the road network, so that the text files do not
+ * have to be parsed again on every launch.
+ *
+ * Layout (big-endian):
+ *   int magic, int version, int nodeCount, int vertexCount, int arcCount, int profileSize
+ *   nodes:    int[nodeCount] external id, double[nodeCount] lat, double[nodeCount] lng
+ *   forward:  int[vertexCount+1] offsets, int[arcCount] sources, targets, cost, value
+ *   reverse:  int[vertexCount+1] offsets, int[arcCount] arcs, sources, cost, value
+ *   profiles: int[profileSize] time-dependent cost pool, see CostProfiles
+ *
+ * The loader memory-maps each section through FileChannel.map and copies it
+ * into the CSRGraph arrays in bulk.
+ *
+ * Usage: java greedLS.GraphSnapshot [arcFile nodeFile snapshotFile]
+ */
+public class GraphSnapshot {
+	public static final int MAGIC = 0x474C5347; //"GLSG"
+	public static final int VERSION = 3;
+
+	private static final int HEADER_BYTES = 6 * 4;
+
+	/**
+	 * Write the graph into a snapshot file.
+	 */
+	public static void write(Graph graph, String filename) throws IOException {
+		CSRGraph g = graph.base;
+		int nodeCount = graph.vertices.size();
+		int n = g.vertexCount();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodeCount);
+			out.writeInt(n);
+			out.writeInt(g.arcCount());
+			out.writeInt(g.profiles.length);
+			for (int i = 0; i < nodeCount; i++) out.writeInt(graph.ids.toExternal(i));
+			for (Vertex v : graph.vertices) out.writeDouble(v.getLat());
+			for (Vertex v : graph.vertices) out.writeDouble(v.getLng());
+			writeInts(out, g.outOffsets);
+			writeInts(out, g.sources);
+			writeInts(out, g.targets);
+			writeInts(out, g.cost);
+			writeInts(out, g.value);
+			writeInts(out, g.inOffsets);
+			writeInts(out, g.inArcs);
+			writeInts(out, g.inSources);
+			writeInts(out, g.inCost);
+			writeInts(out, g.inValue);
+			writeInts(out, g.profiles);
+		}
+	}
+
+	private static void writeInts(DataOutputStream out, int[] a) throws IOException {
+		for (int x : a) out.writeInt(x);
+	}
+
+	/**
+	 * Load a snapshot file into the graph.
+	 */
+	public static void load(Graph graph, String filename) throws IOException {
+		try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			if (header.getInt() != MAGIC)
+				throw new IOException(filename + ": not a graph snapshot");
+			int version = header.getInt();
+			if (version != VERSION)
+				throw new IOException(filename + ": unsupported snapshot version " + version);
+			int nodeCount = header.getInt();
+			int n = header.getInt();
+			int m = header.getInt();
+			int profileSize = header.getInt();
+
+			long pos = HEADER_BYTES;
+			int[] ids = new int[nodeCount];
+			pos = readInts(ch, pos, ids);
+			double[] lat = new double[nodeCount];
+			pos = readDoubles(ch, pos, lat);
+			double[] lng = new double[nodeCount];
+			pos = readDoubles(ch, pos, lng);
+
+			int[] outOffsets = new int[n + 1];
+			int[] sources = new int[m];
+			int[] targets = new int[m];
+			int[] cost = new int[m];
+			int[] value = new int[m];
+			pos = readInts(ch, pos, outOffsets);
+			pos = readInts(ch, pos, sources);
+			pos = readInts(ch, pos, targets);
+			pos = readInts(ch, pos, cost);
+			pos = readInts(ch, pos, value);
+			int[] inOffsets = new int[n + 1];
+			int[] inArcs = new int[m];
+			int[] inSources = new int[m];
+			int[] inCost = new int[m];
+			int[] inValue = new int[m];
+			pos = readInts(ch, pos, inOffsets);
+			pos = readInts(ch, pos, inArcs);
+			pos = readInts(ch, pos, inSources);
+			pos = readInts(ch, pos, inCost);
+			pos = readInts(ch, pos, inValue);
+			int[] profiles = new int[profileSize];
+			pos = readInts(ch, pos, profiles);
+			if (pos != ch.size())
+				throw new IOException(filename + ": truncated or corrupted snapshot");
+
+			graph.vertices = new ArrayList<Vertex>(nodeCount);
+			for (int i = 0; i < nodeCount; i++) {
+				graph.vertices.add(new Vertex(i, lat[i], lng[i]));
+			}
+			graph.ids = new VertexIdMap(ids, nodeCount);
+			graph.base = new CSRGraph(outOffsets, sources, targets, cost, value,
+					inOffsets, inArcs, inSources, inCost, inValue, profiles);
+		}
+	}
+
+	/**
+	 * Map the section starting at pos and copy it into a.
+	 *
+	 * @return the position after the section.
+	 */
+	static long readInts(FileChannel ch, long pos, int[] a) throws IOException {
+		long len = 4L * a.length;
+		if (len > 0) {
+			ch.map(FileChannel.MapMode.READ_ONLY, pos, len).order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(a);
+		}
+		return pos + len;
+	}
+
+	private static long readDoubles(FileChannel ch, long pos, double[] a) throws IOException {
+		long len = 8L * a.length;
+		if (len > 0) {
+			ch.map(FileChannel.MapMode.READ_ONLY, pos, len).order(ByteOrder.BIG_ENDIAN).asDoubleBuffer().get(a);
+		}
+		return pos + len;
+	}
+
+	/**
+	 * @return true if the snapshot exists and is not older than the text files.
+	 */
+	public static boolean isFresh(String filename, String... sources) {
+		File snapshot = new File(filename);
+		if (!snapshot.isFile()) return false;
+		for (String s : sources) {
+			if (new File(s).lastModified() > snapshot.lastModified()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * One-time converter from the text files to a snapshot.
+	 */
+	public static void main(String[] args) throws Exception {
+		String adjFile = args.length > 0 ? args[0] : "Graph/Arcs.txt";
+		String nodeFile = args.length > 1 ? args[1] : "Graph/Nodes.csv";
+		String snapshotFile = args.length > 2 ? args[2] : "Graph/graph.bin";
+		Graph graph = new Graph(adjFile, nodeFile);
+		long start = System.currentTimeMillis();
+		GraphSnapshot.write(graph, snapshotFile);
+		System.out.println("Wrote " + snapshotFile + ": " + graph.base.vertexCount() + " vertices, "
+				+ graph.base.arcCount() + " arcs in " + (System.currentTimeMillis() - start) + " ms");
+	}
+}
@@ -5,6 +5,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.net.URL;
 import java.net.HttpURLConnection;
 import java.io.BufferedReader;
@@ -30,9 +34,11 @@ public class GreedLS {
 //    private final static String nodeFile = "Graph/LAStaticData-Nodes.csv";
     private final static String adjFile = "Graph/Arcs.txt"; /* MODIFIED */
     private final static String nodeFile = "Graph/Nodes.csv"; /* MODIFIED */
+    private final static String snapshotFile = "Graph/graph.bin"; /* see GraphSnapshot */
+    private final static String landmarkFile = "Graph/landmarks.bin"; /* see Landmarks */
     private static PrintWriter outputWriter;
 
-    public final static Graph graph = new Graph(adjFile, nodeFile);
+    public final static Graph graph = new Graph(adjFile, nodeFile, snapshotFile, landmarkFile);
     public final static int costGranularity = 1000 * 60 * 15; //15 mins
     public final static int valueGranularity = 1000 * 60 * 15; //15 mins
     public static int iterationNUM = 0;
@@ -55,12 +61,59 @@ public class GreedLS {
 //    public static double speedMIN = 15.615478233558985; //Double.MAX_VALUE;
     public static double speedMIN = 0.0; //Double.MAX_VALUE; /* MODIFIED: we don't use distance pruning */
     public static double speedAVG = 327.81159775135086;
+
+    /**
+     * Distance used by calEuclideanCriteria, see Coordinates.
+     * PLANAR for graphs whose coordinates are not lat/lng (speedAVG is
+     * then per coordinate unit instead of per meter).
+     */
+    public static String distanceMode = Coordinates.EARTH;
+
+    /**
+     * Criteria used to rank the candidate arcs: calEuclideanCriteria, or
+     * calTDSPCriteria with one one-to-many and one many-to-one search 
+     * per gap, see FindTDSP.
+     */
+    public static final String EUCLIDEAN_CRITERIA = "EUCLIDEAN";
+    public static final String TDSP_CRITERIA = "TDSP";
+    public static String criteria = EUCLIDEAN_CRITERIA;
+
+    /**
+     * Reuse the candidate arcs of a gap that is unchanged since the last
+     * iteration, and their criteria, see CandidateArcSet.
+     */
+    public static boolean candidateArcCache = true;
+
+    /**
+     * Number of threads generating and scoring the candidate arcs of the
+     * gaps, one task per gap; 1 to run them in the calling thread.
+     */
+    public static int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of best candidate arcs of each gap ranked for insertion, 
+     * 0 for all of them.
+     */
+    public static int candidatesPerGap = 0;
+
+    private static ForkJoinPool pool = null;
     private static int curMaxScenicValue = 0 - Integer.MAX_VALUE;
     private static int[] optimalValue = new int[4];
     private static int optimalValueIdx = 0;
 
     private FindTDSP findTDSP = new FindTDSP();
 
+    /* The candidate arcs of GreedLSAlgorithm_OneIteration, best criteria first */
+    private final PriorityQueue<QueuedArc> arcQueue =
+            new PriorityQueue<QueuedArc>(10,
+                    new Comparator<QueuedArc>() {
+                        public int compare(QueuedArc p1, QueuedArc p2) {
+                            if (p1.criteria > p2.criteria) return -1;
+                            if (p1.criteria == p2.criteria) return 0;
+                            return +1;
+                        }
+                    });
+
     Solution solution = new Solution(); //always the current solution
     public long programStartTime = 0;
     public long programCurTime = 0;
@@ -70,33 +123,24 @@ public class GreedLS {
     private static long printingTime;
 
     /**
-     * Record the feasible / candidate arcs generated at each iteration.
-     */
-    private Set<Arc> CurIntersectionArc; //G'
-
-    /**
-     * Record the feasible vertices calculated at current iteration.
-     */
-    private Map<Integer, Pair<Integer, Integer>> CurverticeEALD_submap =
-            new HashMap<Integer, Pair<Integer, Integer>>(); //V'
-
-    /**
-     * Record the feasible vertices calculated so far.
+     * Record the feasible vertices calculated so far, as a bitset.
      * Used for ``inherit''-pruning
      */
-    public Map<Integer, Pair<Integer, Integer>> verticeEALD_map =
-            new HashMap<Integer, Pair<Integer, Integer>>(); //V''
+    public long[] verticeEALD_map = new long[0]; //V''
 
     /**
      * Record the feasible arcs calculated so far.
      */
-    public Set<Arc> CAS = new HashSet<Arc>(); //G''
+    public ArcSet CAS = new ArcSet(); //G''
 
     //public Set<Pair<Integer,Integer>> CAS = new HashSet<Pair<Integer,Integer>>(); //G''
-    public Map<Integer, Pair<Integer, Integer>> tempVerticeEALD_map =
-            new HashMap<Integer, Pair<Integer, Integer>>(); //V''
+    public long[] tempVerticeEALD_map = new long[0]; //V''
+
+    public ArcSet tempCAS = new ArcSet(); //G''
 
-    public Set<Arc> tempCAS = new HashSet<Arc>(); //G''
+    /* Vertices of the sub-path (vi, vm) being inserted, stamped with pathStamp */
+    private int[] pathMark = new int[0];
+    private int pathStamp = 0;
 
     public String startSolution = "NULL";
 
@@ -106,6 +150,92 @@ public class GreedLS {
     private Map<Integer, EALDbuffer_MapValue> EALDBuffer =
             new HashMap<Integer, EALDbuffer_MapValue>();
 
+    /**
+     * Working arrays of calculateCandidateArcSet, FWR and BWR, one set
+     * per thread.
+     */
+    private static final class Scratch {
+        /* Results of FWR and BWR, reused by every sweep */
+        final Reachability fwrResult = new Reachability();
+        final Reachability bwrResult = new Reachability();
+
+        /**
+         * Record the feasible vertices of the current gap, as a bitset
+         * (bit v of word v >>> 6) and in ascending order. Their EA and 
+         * LD are the times of fwrResult and bwrResult.
+         */
+        long[] CurverticeEALD_submap = new long[0]; //V'
+        int[] CurFeasibleVertices = new int[16];
+        int CurFeasibleVertexNUM = 0;
+
+        /**
+         * Record the candidate arcs of the current gap: arc indices
+         * CurIntersectionArc[0..CurIntersectionArcNUM-1].
+         */
+        int[] CurIntersectionArc = new int[16]; //G'
+        int CurIntersectionArcNUM = 0;
+
+        /* Vertices of the current gap to remove from EALDBuffer */
+        int[] removed = new int[16];
+        int removedNUM = 0;
+
+        /**
+         * Per target vertex, the last row of G' that has an arc to it;
+         * rows are numbered by arcRowNUM.
+         */
+        int[] arcRowMark = new int[0];
+        int arcRowNUM = 0;
+
+        static int[] add(int[] list, int size, int v) {
+            if (size == list.length) list = Arrays.copyOf(list, 2 * size);
+            list[size] = v;
+            return list;
+        }
+    }
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Candidate arcs of one gap that are not in the solution yet, queued
+     * with their criteria, in the order they were found.
+     */
+    private static final class GapCandidates {
+        final Gap gap;
+        CandidateArcSet arcSet;
+        int[] bufferRemovals;
+        List<QueuedArc> queued;
+        long candidateTime;
+        long selectionTime;
+
+        GapCandidates(Gap gap) {
+            this.gap = gap;
+        }
+    }
+
+
+    /**
+     * A candidate arc in the queue of GreedLSAlgorithm_OneIteration: its
+     * criteria and the closestGap they were calculated for, when the
+     * solution was at version stamp. gap is the gap the arc was a
+     * candidate of. The entries of a gap are kept on its CandidateArcSet
+     * and queued again by the next iterations.
+     */
+    static final class QueuedArc {
+        final double criteria;
+        final Arc arc;
+        final Gap gap;
+        final Gap closest;
+        final int stamp;
+
+        QueuedArc(double criteria, Arc arc, Gap gap, Gap closest, int stamp) {
+            this.criteria = criteria;
+            this.arc = arc;
+            this.gap = gap;
+            this.closest = closest;
+            this.stamp = stamp;
+        }
+    }
+
 
     /**
      * Convert timecost to time index
@@ -114,10 +244,7 @@ public class GreedLS {
      * @return
      */
     public static int TimeCost2Idx(int timecost) {
-        int timeIdx = timecost / costGranularity;
-        if (timeIdx >= 60) timeIdx = 59;
-        if (timeIdx < 0) timeIdx = 0;
-        return timeIdx;
+        return CostProfiles.slot(timecost);
     }
 
 
@@ -156,31 +283,16 @@ public class GreedLS {
      * @param graphArcList
      */
     public void copyFromGraph() {
-        Arc arc;
-        int i = 0;
-        for (Map.Entry<Integer, Map<Integer, Pair<Integer, Integer>>> entry :
-                GreedLS.graph.adjList.adjacencyList.entrySet()) {
-
-            for (Map.Entry<Integer, Pair<Integer, Integer>> pair :
-                    entry.getValue().entrySet()) {
-                i++;
-                arc = new Arc();
-                arc.source = entry.getKey();
-                arc.target = pair.getKey();
-                arc.cost_value_list = pair.getValue();
-                this.CAS.add(arc);
-                if (!this.verticeEALD_map.containsKey(arc.source)) {
-                    this.verticeEALD_map.put(arc.source, new Pair<Integer, Integer>
-                            (GreedLS.Idx2TimeCost(QuerySetting.startTime),
-                                    GreedLS.Idx2TimeCost(QuerySetting.startTime) + QuerySetting.budgetTime));
-                }
-                if (!this.verticeEALD_map.containsKey(arc.target)) {
-                    this.verticeEALD_map.put(arc.target, new Pair<Integer, Integer>
-                            (GreedLS.Idx2TimeCost(QuerySetting.startTime),
-                                    GreedLS.Idx2TimeCost(QuerySetting.startTime) + QuerySetting.budgetTime));
-                }
-            }
+        RoadNetwork network = GreedLS.graph.network;
+        int words = (network.vertexCount() + 63) >>> 6;
+        if (this.verticeEALD_map.length < words) {
+            this.verticeEALD_map = new long[words];
+            this.tempVerticeEALD_map = new long[words];
         }
+        if (this.pathMark.length < network.vertexCount()) this.pathMark = new int[network.vertexCount()];
+        //---every arc and vertex, without listing them
+        this.CAS.setAll(network.arcCount());
+        Arrays.fill(this.verticeEALD_map, -1L);
     }
 
 
@@ -191,8 +303,8 @@ public class GreedLS {
         Gap g = new Gap();
         g = findTDSP.tdsp(QuerySetting.SourceVexID,
                 QuerySetting.TargetVexID,
-                QuerySetting.startTime);
-        this.solution.gapList.add(g);
+                GreedLS.Idx2TimeCost(QuerySetting.startTime), FindTDSP.pointToPointMode);
+        this.solution.addGap(g);
         //--start from the shortest path
         if (this.startSolution == "SP") {
             this.solution.totalCost = g.SPCost;
@@ -201,161 +313,288 @@ public class GreedLS {
     }
 
 
-    /**
-     * Return the earliest arrival entry <travel time, collected value>.
-     */
-    private Map.Entry<Integer, Integer> getEarliestArriveEntry(Map<Integer, Integer> map) {
-        Map.Entry<Integer, Integer> minEA = null;
-        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
-            if (minEA == null || minEA.getValue() > entry.getValue()) {
-                minEA = entry;
-            }
-        }
-        return minEA;
-    }
-
-
-    /**
-     * Return the latest departure <travel time, collected value>.
-     */
-    private Map.Entry<Integer, Integer> getLatestDepartureEntry(Map<Integer, Integer> map) {
-        Map.Entry<Integer, Integer> maxLD = null;
-        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
-            if (maxLD == null || maxLD.getValue() < entry.getValue()) {
-                maxLD = entry;
-            }
-        }
-        return maxLD;
-    }
-
-
     /**
      * Calculate the feasible arcs:
      * 1) FWR: Perform the forward search to calculate the forward-reachable vertices;
      * 2) BWR: Perform the backward search to calculate the backward-reachable vertices;
      * 3) Calculate the vertices that are both forward and backward reachable vertices.
      *
+     * The result is kept on the gap and reused while the gap, its start
+     * time and b do not change, see CandidateArcSet. Apart from that and
+     * from EALDBuffer in the first iteration, which has a single gap, the
+     * solution and the fields are only read: the gaps can be processed 
+     * in parallel. The vertices of the gap to remove from EALDBuffer are 
+     * left in the scratch arrays of the thread.
+     *
      * @param gap: the gap in the solution path where arcs are inserted into.
      * @param b:   the remaining budget.
+     * @return V' and G' of the gap.
      */
-    public void calculateCandidateArcSet(Gap gap, int b) throws Exception {
-        Map<Integer, Integer> FWR_result = FWR(gap.start, gap.actualStarttime, b);
+    public CandidateArcSet calculateCandidateArcSet(Gap gap, int b) throws Exception {
+        RoadNetwork network = GreedLS.graph.network;
+        Scratch s = this.scratch.get();
+        s.removedNUM = 0;
+        CandidateArcSet cached = gap.candidateArcs;
+        if (GreedLS.candidateArcCache && GreedLS.iterationNUM > 1
+                && cached != null && cached.matches(gap, b)) {
+            return cached;
+        }
+
+        Reachability FWR_result = FWR(gap.start, gap.actualStarttime, b, gap.end);
         if (GreedLS.iterationNUM == 1) {
-            for (Map.Entry<Integer, Integer> fwr_ret : FWR_result.entrySet()) {
+            for (int i = 0; i < FWR_result.size(); i++) {
+                int v = FWR_result.vertex(i);
                 EALDbuffer_MapValue mapval = new EALDbuffer_MapValue();
-                mapval.setEA(fwr_ret.getValue() - GreedLS.Idx2TimeCost(QuerySetting.startTime));
-                this.EALDBuffer.put(fwr_ret.getKey(), mapval);
+                mapval.setEA(FWR_result.time(v) - GreedLS.Idx2TimeCost(QuerySetting.startTime));
+                this.EALDBuffer.put(v, mapval);
             }
         }
 
 
-        Map<Integer, Integer> BWR_result = BWR(gap.end, gap.actualStarttime, b);
-        if (this.CurverticeEALD_submap != null) this.CurverticeEALD_submap.clear();
-        if (this.CurIntersectionArc != null) this.CurIntersectionArc.clear();
-
-        //calculate the intersection vertices
-        this.CurverticeEALD_submap = new HashMap<Integer, Pair<Integer, Integer>>(); //V'
-        for (Map.Entry<Integer, Integer> entryf : FWR_result.entrySet()) {
-            if (BWR_result.containsKey(entryf.getKey())) {
-                int ld = BWR_result.get(entryf.getKey());
-                if (entryf.getValue() <= ld && !this.CurverticeEALD_submap.containsKey(entryf.getKey())) {
-                    this.CurverticeEALD_submap.put(entryf.getKey(),
-                            new Pair<Integer, Integer>(entryf.getValue(), ld));
+        Reachability BWR_result = BWR(gap.end, gap.actualStarttime, b, gap.start);
 
+        //calculate the intersection vertices: word-level AND of the reached sets
+        int words = (network.vertexCount() + 63) >>> 6;
+        if (s.CurverticeEALD_submap.length < words) s.CurverticeEALD_submap = new long[words];
+        long[] fwrBits = FWR_result.bits();
+        long[] bwrBits = BWR_result.bits();
+        long[] cur = s.CurverticeEALD_submap; //V'
+        int lo = Math.max(FWR_result.firstWord(), BWR_result.firstWord());
+        int hi = Math.min(FWR_result.lastWord(), BWR_result.lastWord());
+        for (int w = lo; w <= hi; w++) {
+            cur[w] = fwrBits[w] & bwrBits[w];
+        }
+        s.CurFeasibleVertexNUM = 0;
+        for (int w = lo; w <= hi; w++) {
+            for (long word = cur[w]; word != 0; word &= word - 1) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                int ld = BWR_result.time(v);
+                if (FWR_result.time(v) <= ld) {
+                    s.CurFeasibleVertices = Scratch.add(s.CurFeasibleVertices, s.CurFeasibleVertexNUM++, v);
                     if (GreedLS.iterationNUM == 1) {
-                        EALDbuffer_MapValue mapval = this.EALDBuffer.get(entryf.getKey());
+                        EALDbuffer_MapValue mapval = this.EALDBuffer.get(v);
                         mapval.setLD(GreedLS.Idx2TimeCost(QuerySetting.startTime) +
                                 QuerySetting.budgetTime - ld);
-                        this.EALDBuffer.replace(entryf.getKey(), mapval);
                     }
-                } else this.EALDBuffer.remove(entryf.getKey());
-            } else this.EALDBuffer.remove(entryf.getKey());
+                } else {
+                    cur[w] &= ~(1L << v);
+                }
+            }
+        }
+        if (!this.EALDBuffer.isEmpty()) {
+            for (int i = 0; i < FWR_result.size(); i++) {
+                int v = FWR_result.vertex(i);
+                if ((cur[v >>> 6] & (1L << v)) == 0) s.removed = Scratch.add(s.removed, s.removedNUM++, v);
+            }
+        }
+
+        //calculate the intersection arcs, by scanning the rows of V'
+        if (s.arcRowMark.length < network.vertexCount()) {
+            s.arcRowMark = new int[network.vertexCount()];
+            s.arcRowNUM = 0;
+        }
+        s.CurIntersectionArcNUM = 0;
+        for (int i = 0; i < s.CurFeasibleVertexNUM; i++) {
+            int vid = s.CurFeasibleVertices[i];
+            int row = ++s.arcRowNUM;
+            for (int a = network.firstOut(vid); a != RoadNetwork.NO_ARC; a = network.nextOut(vid, a)) {
+                int target = network.arcTarget(a);
+                //---parallel arcs: keep the first one
+                if ((cur[target >>> 6] & (1L << target)) != 0 && s.arcRowMark[target] != row) {
+                    s.arcRowMark[target] = row;
+                    s.CurIntersectionArc = Scratch.add(s.CurIntersectionArc, s.CurIntersectionArcNUM++, a);
+                }
+            }
+        }
+        //---leave V' empty for the next gap
+        for (int w = lo; w <= hi; w++) {
+            cur[w] = 0;
+        }
+        CandidateArcSet result = new CandidateArcSet(gap, b,
+                Arrays.copyOf(s.CurFeasibleVertices, s.CurFeasibleVertexNUM),
+                Arrays.copyOf(s.CurIntersectionArc, s.CurIntersectionArcNUM));
+        if (GreedLS.candidateArcCache) gap.candidateArcs = result;
+        return result;
+    }
+
+
+    /**
+     * @return the criteria of inserting each of the arcs into the gap.
+     */
+    private double[] scoreArcs(Gap gap, int[] arcs) {
+        RoadNetwork network = GreedLS.graph.network;
+        Distances vi_vm = null, vn_vj = null;
+        if (TDSP_CRITERIA.equals(GreedLS.criteria)) {
+            //---two searches for all the arcs
+            int[] sources = new int[arcs.length];
+            int[] targets = new int[arcs.length];
+            for (int i = 0; i < arcs.length; i++) {
+                sources[i] = network.arcSource(arcs[i]);
+                targets[i] = network.arcTarget(arcs[i]);
+            }
+            vi_vm = findTDSP.oneToMany(gap.start, gap.actualStarttime, sources, QuerySetting.budgetTime);
+            vn_vj = findTDSP.manyToOne(gap.end, gap.actualStarttime + QuerySetting.budgetTime,
+                    targets, QuerySetting.budgetTime);
+        }
+        double[] criteria = new double[arcs.length];
+        for (int i = 0; i < arcs.length; i++) {
+            Arc arc = new Arc(network, arcs[i]);
+            criteria[i] = (vi_vm != null)
+                    ? this.calTDSPCriteria(gap, arc, vi_vm.cost(i), vi_vm.value(i), vn_vj.cost(i), vn_vj.value(i))
+                    : this.calEuclideanCriteria(gap, arc); //Euclidean selection
         }
-        /** If exist already, then update value automatically */
-        this.tempVerticeEALD_map.putAll(this.CurverticeEALD_submap);
-
-        //calculate the intersection arcs
-        this.CurIntersectionArc = new HashSet<Arc>(); //G'
-        for (Map.Entry<Integer, Pair<Integer, Integer>> ventry : this.CurverticeEALD_submap.entrySet()) {
-            for (Map.Entry<Integer, Pair<Integer, Integer>> target :
-                    GreedLS.graph.adjList.adjacencyList.get(ventry.getKey()).entrySet()) {
-                Arc arc = new Arc();
-                arc.source = ventry.getKey();
-                arc.target = target.getKey();
-                arc.cost_value_list = target.getValue();
-                if (this.CurverticeEALD_submap.containsKey(target.getKey())
-                        && !this.CurIntersectionArc.contains(arc)) {
-                    this.CurIntersectionArc.add(arc);
+        return criteria;
+    }
+
+
+    /**
+     * @return the criteria of inserting the arc into the gap, as
+     *         scoreArcs calculates them.
+     */
+    private double scoreArc(Gap gap, Arc arc) {
+        return this.scoreArcs(gap, new int[]{arc.index})[0];
+    }
+
+
+    /**
+     * Candidate generation and scoring of one gap, see 
+     * GreedLSAlgorithm_OneIteration: the candidate arcs of the gap that
+     * are not in the solution and their criteria, the best
+     * candidatesPerGap of them if set.
+     */
+    private GapCandidates generateCandidates(Gap gap) throws Exception {
+        GapCandidates result = new GapCandidates(gap);
+        //======candidate calculation
+        long time = System.currentTimeMillis();
+        result.arcSet = this.calculateCandidateArcSet(gap, QuerySetting.budgetTime);
+        Scratch s = this.scratch.get();
+        result.bufferRemovals = Arrays.copyOf(s.removed, s.removedNUM);
+        result.candidateTime = System.currentTimeMillis() - time;
+        //======arc selection
+        time = System.currentTimeMillis();
+        RoadNetwork network = GreedLS.graph.network;
+        CandidateArcSet arcSet = result.arcSet;
+        if (arcSet.criteria == null) arcSet.criteria = this.scoreArcs(gap, arcSet.arcs);
+        int[] notInSolution = new int[arcSet.arcs.length];
+        int n = 0;
+        for (int i = 0; i < arcSet.arcs.length; i++) {
+            int a = arcSet.arcs[i];
+            if (!this.solution.containsArc(network.arcSource(a), network.arcTarget(a))) notInSolution[n++] = i;
+        }
+        notInSolution = Arrays.copyOf(notInSolution, n);
+        //---the entries of the last iteration, unless arcs of G' have joined the solution since
+        if (arcSet.queued == null || !Arrays.equals(arcSet.notInSolution, notInSolution)) {
+            double[] criteria = new double[n];
+            for (int j = 0; j < n; j++) criteria[j] = arcSet.criteria[notInSolution[j]];
+            int k = GreedLS.candidatesPerGap;
+            double threshold = 0 - Double.MAX_VALUE;
+            int ties = n;
+            if (k > 0 && n > k) {
+                //---keep the k best in their order, the first ones among equals
+                double[] sorted = criteria.clone();
+                Arrays.sort(sorted);
+                threshold = sorted[n - k];
+                ties = k;
+                for (double c : criteria) if (c > threshold) ties--;
+            }
+            List<QueuedArc> queued = new ArrayList<QueuedArc>(Math.min(n, k > 0 ? k : n));
+            for (int j = 0; j < n; j++) {
+                if (criteria[j] > threshold || (criteria[j] == threshold && ties-- > 0)) {
+                    queued.add(new QueuedArc(criteria[j], new Arc(network, arcSet.arcs[notInSolution[j]]),
+                            gap, gap, this.solution.version));
                 }
             }
+            arcSet.notInSolution = notInSolution;
+            arcSet.queued = queued;
+        }
+        result.queued = arcSet.queued;
+        result.selectionTime = System.currentTimeMillis() - time;
+        return result;
+    }
+
+
+    /**
+     * generateCandidates for every gap, in parallel if there are several
+     * gaps and parallelism is above 1.
+     *
+     * @return the candidates of each gap, in the order of the gaps.
+     */
+    private List<GapCandidates> generateCandidates(List<Gap> gaps) throws Exception {
+        List<GapCandidates> result = new ArrayList<GapCandidates>(gaps.size());
+        //---the first iteration writes EALDBuffer
+        if (GreedLS.parallelism <= 1 || gaps.size() <= 1 || GreedLS.iterationNUM == 1) {
+            for (Gap gap : gaps) result.add(this.generateCandidates(gap));
+            return result;
+        }
+        if (GreedLS.pool == null || GreedLS.pool.getParallelism() != GreedLS.parallelism) {
+            if (GreedLS.pool != null) GreedLS.pool.shutdown();
+            GreedLS.pool = new ForkJoinPool(GreedLS.parallelism);
+        }
+        List<Callable<GapCandidates>> tasks = new ArrayList<Callable<GapCandidates>>(gaps.size());
+        for (Gap gap : gaps) tasks.add(() -> this.generateCandidates(gap));
+        for (Future<GapCandidates> f : GreedLS.pool.invokeAll(tasks)) {
+            try {
+                result.add(f.get());
+            } catch (ExecutionException e) {
+                throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+            }
         }
-        this.tempCAS.addAll(this.CurIntersectionArc);
+        return result;
     }
 
 
     /**
      * calculate the earliest arrive time for each candidate arc
      *
-     * @param CAQ: candidate arc queue
-     * @param v0:  starting vertex
-     * @param t0:  starting time
-     * @param b:   budget
-     */
-    public Map<Integer, Integer> FWR(int vid0, int t0, int b) throws Exception {
-        Map<Integer, Integer> Q = new HashMap<Integer, Integer>();
-        Map<Integer, Integer> result = new HashMap<Integer, Integer>();
-        Q.put(vid0, t0);
-        result.put(vid0, t0);
+     * @param v0: starting vertex
+     * @param t0: starting time
+     * @param b:  budget
+     * @param vN: ending vertex, to prune with the landmark lower bounds
+     * @return the earliest arrival time of the reached vertices, 
+     *         valid until the next call.
+     */
+    public Reachability FWR(int vid0, int t0, int b, int vidN) throws Exception {
+        Reachability result = this.scratch.get().fwrResult;
+        RoadNetwork network = GreedLS.graph.network;
+        result.clear(network.vertexCount());
+        VertexQueue Q = result.queue; //---min-heap of earliest arrival times
+        Q.push(vid0, t0);
+        result.set(vid0, t0);
         while (!Q.isEmpty()) {
-            Map.Entry<Integer, Integer> entryEA = getEarliestArriveEntry(Q);
-            int vi = entryEA.getKey();
-            int eai = entryEA.getValue();
-            Q.remove(vi, eai);
-            if (GreedLS.graph.adjList.adjacencyList.containsKey(vi)) {
-                for (Map.Entry<Integer, Pair<Integer, Integer>> vjpair :
-                        GreedLS.graph.adjList.adjacencyList.get(vi).entrySet()) {
-                    /** Reduce the search space, search from V''
-                     * Inherit technique.
-                     */
-                    if (this.verticeEALD_map.containsKey(vjpair.getKey())) {
-                        int eaj = eai + (vjpair.getValue()).getLeft();
-                        /** Not apply EALD-pruning yet. */
-                        if (eaj < t0 + b) {//----within the budget
-                            /* BELOW MODIFIED: we don't use distance pruning */
+            int vi = Q.pop();
+            int eai = result.time(vi);
+            for (int a = network.firstOut(vi); a != RoadNetwork.NO_ARC; a = network.nextOut(vi, a)) {
+                int vj = network.arcTarget(a);
+                /** Reduce the search space, search from V''
+                 * Inherit technique.
+                 */
+                if ((this.verticeEALD_map[vj >>> 6] & (1L << vj)) != 0) {
+                    int eaj = eai + network.arcCost(a, eai);
+                    /** Not apply EALD-pruning yet. */
+                    if (eaj < t0 + b) {//----within the budget
+                        /* BELOW MODIFIED: we don't use distance pruning */
 //                            double vj_target_dist = this.EarthDistance(
 //                                    GreedLS.graph.vertices.get(QuerySetting.TargetVexID).lat,
 //                                    GreedLS.graph.vertices.get(QuerySetting.TargetVexID).lng,
-//                                    GreedLS.graph.vertices.get(vjpair.getKey()).lat,
-//                                    GreedLS.graph.vertices.get(vjpair.getKey()).lng);
-                            double vj_target_dist = 0;
-                            /* ABOVE MODIFIED */
-                            /** Euclidean distance based pruning (or A* pruning or FWEST-pruning. */
-                            if (eaj + vj_target_dist * GreedLS.speedMIN < t0 + b) {
-                                EALDbuffer_MapValue buffer = new EALDbuffer_MapValue();
-                                if (this.EALDBuffer.containsKey(vjpair.getKey())) {
-                                    buffer = this.EALDBuffer.get(vjpair.getKey());
+//                                    GreedLS.graph.vertices.get(vj).lat,
+//                                    GreedLS.graph.vertices.get(vj).lng);
+                        double vj_target_dist = 0;
+                        /* ABOVE MODIFIED */
+                        /** Euclidean distance based pruning (or A* pruning or FWEST-pruning. */
+                        if (eaj + vj_target_dist * GreedLS.speedMIN < t0 + b
+                                /** Landmark pruning: vj must still reach vN by t0 + b. */
+                                && (long) eaj + GreedLS.graph.lowerBound(vj, vidN) <= t0 + b) {
+                            EALDbuffer_MapValue buffer = this.EALDBuffer.get(vj);
+                            int LDCost = (buffer != null) ? buffer.LDCost : 0;
+                            /** Buffer pruning */
+                            if ((eaj - GreedLS.Idx2TimeCost(QuerySetting.startTime) + LDCost <= b)) {
+                                /** A vertex is (re-)queued whenever its time improves. */
+                                if (!result.contains(vj) || eaj < result.time(vj)) {
+                                    result.set(vj, eaj);
+                                    Q.push(vj, eaj);
                                 }
-                                /** Buffer pruning */
-                                if ((eaj - GreedLS.Idx2TimeCost(QuerySetting.startTime) + buffer.LDCost <= b)) {
-                                    if (!result.containsKey(vjpair.getKey())) {
-                                        result.put(vjpair.getKey(), eaj);
-                                        if (!Q.containsKey(vjpair.getKey())) Q.put(vjpair.getKey(), eaj);
-                                        else {
-                                            int old_eaj = Q.get(vjpair.getKey());
-                                            if (old_eaj > eaj) Q.replace(vjpair.getKey(), eaj);
-                                        }
-                                    } else {
-                                        int old_eaj = result.get(vjpair.getKey());
-                                        if (old_eaj > eaj) {
-                                            result.replace(vjpair.getKey(), old_eaj, eaj);
-                                            if (Q.containsKey(vjpair.getKey())) {
-                                                Q.replace(vjpair.getKey(), eaj);
-                                            }
-                                        }
-                                    }
-                                }//----buffer pruning
-                            }//----A* pruning
-                        }
+                            }//----buffer pruning
+                        }//----A* pruning
                     }
                 }
             }
@@ -368,78 +607,62 @@ public class GreedLS {
     /**
      * Calculate the latest leaving time for each candidate arc
      *
-     * @param CAQ: candidate arc queue
-     * @param v0:  starting vertex
-     * @param t0:  starting time
-     * @param b:   budget
-     */
-    public Map<Integer, Integer> BWR(int vidN, int t0, int b) throws Exception {
-        Map<Integer, Integer> Q = new HashMap<Integer, Integer>();
-        Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+     * @param vN: ending vertex
+     * @param t0: starting time
+     * @param b:  budget
+     * @param v0: starting vertex, to prune with the landmark lower bounds
+     * @return the latest departure time of the reached vertices, 
+     *         valid until the next call.
+     */
+    public Reachability BWR(int vidN, int t0, int b, int vid0) throws Exception {
+        Reachability result = this.scratch.get().bwrResult;
+        RoadNetwork network = GreedLS.graph.network;
+        result.clear(network.vertexCount());
+        VertexQueue Q = result.queue; //---max-heap of latest departure times, keyed by -LD
         int tN = t0 + b;
-        Q.put(vidN, tN);
-        result.put(vidN, t0 + b);
+        Q.push(vidN, -tN);
+        result.set(vidN, tN);
         while (!Q.isEmpty()) {
-            Map.Entry<Integer, Integer> entryLD = getLatestDepartureEntry(Q);
-            int vj = entryLD.getKey();
-            int ldj = entryLD.getValue();
-            Q.remove(vj, ldj);
-            if (GreedLS.graph.adjList.reverse_adjacencyList.containsKey(vj)) {
-                for (Map.Entry<Integer, Pair<Integer, Integer>> vipair :
-                        GreedLS.graph.adjList.reverse_adjacencyList.get(vj).entrySet()) { //reverse adjacency list
-                    int vi = vipair.getKey();
-                    /** Reduce the search space, search from V''
-                     * Inherit technique.
+            int vj = Q.pop();
+            int ldj = result.time(vj);
+            for (int r = network.firstIn(vj); r != RoadNetwork.NO_ARC; r = network.nextIn(vj, r)) { //reverse adjacency list
+                int vi = network.inSource(r);
+                /** Reduce the search space, search from V''
+                 * Inherit technique.
+                 */
+                if ((this.verticeEALD_map[vi >>> 6] & (1L << vi)) != 0) {
+                    /**
+                     * To find the latest time ldi to leave vi such that
+                     * ldi + cost(vi, vj, ldi) <= ldj, see CostProfiles.
                      */
-                    if (this.verticeEALD_map.containsKey(vi)) {
-                        /**
-                         * To find maximum time index Taok of the list
-                         * L=vipair.getRight() such that L[Taok]+Taok <= ldj,
-                         * and then ldi=ldj-L[Taok].
-                         */
-                        int Taok = ldj;
-                        for (; Taok + vipair.getValue().getLeft() < ldj; Taok = Taok - GreedLS.costGranularity) ;
-                        int ldi = ldj - vipair.getValue().getLeft();
-
-                        /** Not apply EALD-pruning yet. */
-                        if (ldi > t0) { //---within the budget
-                            /* BELOW MODIFIED: we don't use distance pruning */
+                    int ldi = network.inLatestDeparture(r, ldj);
+
+                    /** Not apply EALD-pruning yet. */
+                    if (ldi > t0) { //---within the budget
+                        /* BELOW MODIFIED: we don't use distance pruning */
 //                            double source_vi_dist = this.EarthDistance(
 //                                    GreedLS.graph.vertices.get(QuerySetting.SourceVexID).lat,
 //                                    GreedLS.graph.vertices.get(QuerySetting.SourceVexID).lng,
 //                                    GreedLS.graph.vertices.get(vi).lat,
 //                                    GreedLS.graph.vertices.get(vi).lng);
-                            double source_vi_dist = 0;
-                            /* ABOVE MODIFIED */
-                            /** Euclidean distance based pruning (or A* pruning or FWEST-pruning. */
-                            if (ldi - source_vi_dist * GreedLS.speedMIN > t0) {
-                                EALDbuffer_MapValue buffer = new EALDbuffer_MapValue();
-                                if (this.EALDBuffer.containsKey(vipair.getKey())) {
-                                    buffer = this.EALDBuffer.get(vipair.getKey());
+                        double source_vi_dist = 0;
+                        /* ABOVE MODIFIED */
+                        /** Euclidean distance based pruning (or A* pruning or FWEST-pruning. */
+                        if (ldi - source_vi_dist * GreedLS.speedMIN > t0
+                                /** Landmark pruning: vi must be reachable from v0 by ldi. */
+                                && (long) ldi - GreedLS.graph.lowerBound(vid0, vi) >= t0) {
+                            EALDbuffer_MapValue buffer = this.EALDBuffer.get(vi);
+                            int EACost = (buffer != null) ? buffer.EACost : 0;
+                            /** Buffer pruning */
+                            if ((EACost + (t0 + b - ldi) <= b)) {
+                                if (!result.contains(vi) || ldi > result.time(vi)) {
+                                    result.set(vi, ldi);
+                                    Q.push(vi, -ldi);
                                 }
-                                /** Buffer pruning */
-                                if ((buffer.EACost + (t0 + b - ldi) <= b)) {
-                                    if (!result.containsKey(vipair.getKey())) {
-                                        result.put(vipair.getKey(), ldi);
-                                        if (!Q.containsKey(vipair.getKey())) Q.put(vipair.getKey(), ldi);
-                                        else {
-                                            int old_ldi = result.get(vipair.getKey());
-                                            if (old_ldi < ldi) Q.replace(vipair.getKey(), ldi);
-                                        }
-                                    } else {
-                                        int old_ldi = result.get(vipair.getKey());
-                                        if (old_ldi < ldi) {
-                                            result.replace(vipair.getKey(), old_ldi, ldi);
-                                            if (Q.containsKey(vipair.getKey())) {
-                                                Q.replace(vipair.getKey(), ldi);
-                                            }
-                                        }
-                                    }
-                                }//----buffer pruning
-                            }//---A* pruning
-
-                        }//---within the budget
-                    }
+                            }//----buffer pruning
+                        }//---A* pruning
+
+                    }//---within the budget
                 }
             }
 
@@ -457,20 +680,34 @@ public class GreedLS {
      * @return: the calculated criteria
      */
     public double calTDSPCriteria(Gap gap, Arc arc) {
-        Vertex vi = GreedLS.graph.vertices.get(gap.start);
-        Vertex vj = GreedLS.graph.vertices.get(gap.end);
-        Vertex vm = GreedLS.graph.vertices.get(arc.source);
-        Vertex vn = GreedLS.graph.vertices.get(arc.target);
-
+        RoadNetwork network = GreedLS.graph.network;
         int starttime_vi_vm = gap.actualStarttime;
-        Gap vi_vm = findTDSP.tdsp(vi.getId(), vm.getId(), GreedLS.TimeCost2Idx(starttime_vi_vm));
-        int starttime_vn_vj_int = starttime_vi_vm + vi_vm.SPCost;
-        Gap vn_vj = findTDSP.tdsp(vn.getId(), vj.getId(), GreedLS.TimeCost2Idx(starttime_vn_vj_int));
+        Gap vi_vm = findTDSP.tdsp(gap.start, arc.source, starttime_vi_vm, FindTDSP.pointToPointMode);
+        if (vi_vm.SPCost == Integer.MAX_VALUE) return 0 - Double.MAX_VALUE;
+        int arc_cost = network.arcCost(arc.index, starttime_vi_vm + vi_vm.SPCost);
+        int starttime_vn_vj_int = starttime_vi_vm + vi_vm.SPCost + arc_cost;
+        Gap vn_vj = findTDSP.tdsp(arc.target, gap.end, starttime_vn_vj_int, FindTDSP.pointToPointMode);
+        return this.calTDSPCriteria(gap, arc, vi_vm.SPCost, vi_vm.collectedValue,
+                vn_vj.SPCost, vn_vj.collectedValue);
+    }
 
-        Pair<Integer, Integer> cost_value_list_vm_vn = GreedLS.graph.adjList.adjacencyList.get(arc.source).get(arc.target);
-        int new_value = vi_vm.collectedValue + vn_vj.collectedValue + cost_value_list_vm_vn.getRight();
+
+    /**
+     * calTDSPCriteria with the travel times and values of the paths
+     * from gap.start to arc.source and from arc.target to gap.end,
+     * e.g., from FindTDSP.oneToMany and FindTDSP.manyToOne.
+     *
+     * @return: the calculated criteria, or -Double.MAX_VALUE if a
+     *          path does not exist.
+     */
+    public double calTDSPCriteria(Gap gap, Arc arc, int cost_vi_vm, int value_vi_vm,
+                                  int cost_vn_vj, int value_vn_vj) {
+        if (cost_vi_vm == Integer.MAX_VALUE || cost_vn_vj == Integer.MAX_VALUE) return 0 - Double.MAX_VALUE;
+        RoadNetwork network = GreedLS.graph.network;
+        int arc_cost = network.arcCost(arc.index, gap.actualStarttime + cost_vi_vm);
+        int new_value = value_vi_vm + value_vn_vj + network.arcValue(arc.index);
         int deltaValue = new_value - gap.collectedValue;
-        int new_cost = vi_vm.SPCost + vn_vj.SPCost + cost_value_list_vm_vn.getLeft();
+        int new_cost = cost_vi_vm + cost_vn_vj + arc_cost;
         int deltaCost = new_cost - gap.SPCost;
         double criteria = ((double) deltaValue / GreedLS.valueMAX) / ((double) deltaCost / GreedLS.costMAX);
         return criteria;
@@ -486,19 +723,16 @@ public class GreedLS {
      * @return: the calculated criteria
      */
     public double calEuclideanCriteria(Gap gap, Arc arc) {
-        Vertex vi = GreedLS.graph.vertices.get(gap.start);
-        Vertex vj = GreedLS.graph.vertices.get(gap.end);
-        Vertex vm = GreedLS.graph.vertices.get(arc.source);
-        Vertex vn = GreedLS.graph.vertices.get(arc.target);
-
-        double vi_vm_dist = this.EarthDistance(vi.getLat(), vi.getLng(), vm.getLat(), vm.getLng());
-        double vn_vj_dist = this.EarthDistance(vn.getLat(), vn.getLng(), vj.getLat(), vj.getLng());
+        Graph g = GreedLS.graph;
+        double vi_vm_dist = g.coords.distance(GreedLS.distanceMode, g.baseVertex(gap.start), g.baseVertex(arc.source));
+        double vn_vj_dist = g.coords.distance(GreedLS.distanceMode, g.baseVertex(arc.target), g.baseVertex(gap.end));
         //int starttime_vi_vm = this.CurverticeEALD_submap.get(vi.id).getLeft();
         int starttime_vi_vm = gap.actualStarttime;
-        int new_value = GreedLS.graph.adjList.adjacencyList.get(vm.getId()).get(vn.getId()).getRight();
+        RoadNetwork network = GreedLS.graph.network;
+        int new_value = network.arcValue(arc.index);
         int deltaValue = new_value - gap.collectedValue;
         int new_cost = (int) ((vi_vm_dist + vn_vj_dist) * GreedLS.speedAVG) +
-                GreedLS.graph.adjList.adjacencyList.get(vm.getId()).get(vn.getId()).getLeft();
+                network.arcCost(arc.index, starttime_vi_vm);
         int deltaCost = new_cost - gap.SPCost;
         double criteria = ((double)new_value/GreedLS.valueMAX) / ((double)new_cost/GreedLS.costMAX);
         return criteria;
@@ -523,25 +757,10 @@ public class GreedLS {
 
 
     /**
-     * Initialize the solution path.
+     * @return true if the arc is on the solution path, see Solution.containsArc.
      */
     public Boolean InSolution(Arc arc) {
-        Gap pre_gap = new Gap();
-        for (Gap gap : this.solution.gapList) {
-            if (pre_gap.start != -1) {
-                if (pre_gap.end == arc.source && gap.start == arc.target) return true;
-            }
-            pre_gap = gap;
-            //--check for the vertex list
-            int preVid = -1;
-            for (int vid : gap.vexIDList) {
-                if (preVid != -1) {//remove from G''
-                    if (preVid == arc.source && vid == arc.target) return true;
-                }//else do nothing
-                preVid = vid;
-            }
-        }
-        return false;
+        return this.solution.containsArc(arc.source, arc.target);
     }
 
 
@@ -552,17 +771,17 @@ public class GreedLS {
         int timegap = GreedLS.Idx2TimeCost(QuerySetting.startTime);
         int idx = 0;
         double average = 0;
+        RoadNetwork network = GreedLS.graph.network;
         for (Gap gap2 : this.solution.gapList) {
             if (!gap1.isEmpty()) {
-                if (GreedLS.graph.adjList.adjacencyList.get(gap1.end) != null) {
-                    if (GreedLS.graph.adjList.adjacencyList.get(gap1.end).get(gap2.start) != null) {
-                        int value = GreedLS.graph.adjList.adjacencyList.get(gap1.end).get(gap2.start).getRight();
-                        int cost = GreedLS.graph.adjList.adjacencyList.get(gap1.end).get(gap2.start).getLeft();
-                        timegap += cost;
-                        arcList.add(new solutionArc(gap1.end, gap2.start, cost, value));
-                        average += (double) value / (double) cost;
-                        idx++;
-                    }
+                int a = network.findArc(gap1.end, gap2.start);
+                if (a != RoadNetwork.NO_ARC) {
+                    int value = network.arcValue(a);
+                    int cost = network.arcCost(a, timegap);
+                    timegap += cost;
+                    arcList.add(new solutionArc(gap1.end, gap2.start, cost, value));
+                    average += (double) value / (double) cost;
+                    idx++;
                 }
             }
             gap1 = gap2;
@@ -570,8 +789,9 @@ public class GreedLS {
             int prev = -1;
             for (int v : gap2.vexIDList) {
                 if (prev != -1) {
-                    int value = GreedLS.graph.adjList.adjacencyList.get(prev).get(v).getRight();
-                    int cost = GreedLS.graph.adjList.adjacencyList.get(prev).get(v).getLeft();
+                    int a = network.findArc(prev, v);
+                    int value = network.arcValue(a);
+                    int cost = network.arcCost(a, timegap);
                     timegap += cost;
                     arcList.add(new solutionArc(prev, v, cost, value));
                     average += (double) value / (double) cost;
@@ -598,7 +818,7 @@ public class GreedLS {
             if (a_criteria > average) {
                 g.end = a.source;
                 g.vexIDList.add(a.source);
-                newSol.gapList.add(g);
+                newSol.addGap(g);
                 newSol.totalCost += g.SPCost;
                 newSol.totalValue += g.collectedValue;
                 newSol.totalCost += a.cost;
@@ -615,7 +835,7 @@ public class GreedLS {
                 if (idx == arcList.size() - 1) {
                     g.end = a.target;
                     g.vexIDList.add(a.target);
-                    newSol.gapList.add(g);
+                    newSol.addGap(g);
                     newSol.totalCost += g.SPCost;
                     newSol.totalValue += g.collectedValue;
                 }
@@ -631,15 +851,15 @@ public class GreedLS {
         this.solution.empty();
         gap1.Empty();
         timegap = GreedLS.Idx2TimeCost(QuerySetting.startTime);
-        for (Gap gap2 : newSol.gapList) {
-            Gap newSP = findTDSP.tdsp(gap2.start, gap2.end, GreedLS.TimeCost2Idx(timegap));
+        for (Gap gap2 : new ArrayList<Gap>(newSol.gapList)) { //---gaps move to this.solution
+            Gap newSP = findTDSP.tdsp(gap2.start, gap2.end, timegap, FindTDSP.pointToPointMode);
             if (newSP.SPCost < gap2.SPCost && this.solution.totalCost + newSP.SPCost < QuerySetting.budgetTime) {
-                this.solution.gapList.add(newSP);
+                this.solution.addGap(newSP);
                 timegap += newSP.SPCost;
                 this.solution.totalCost += newSP.SPCost;
                 this.solution.totalValue += newSP.collectedValue;
             } else if (this.solution.totalCost + gap2.SPCost < QuerySetting.budgetTime) {
-                this.solution.gapList.add(gap2);
+                this.solution.addGap(gap2);
                 timegap += gap2.SPCost;
                 this.solution.totalCost += gap2.SPCost;
                 this.solution.totalValue += gap2.collectedValue;
@@ -647,11 +867,11 @@ public class GreedLS {
 
 
             if (!gap1.isEmpty()) {
-                if (GreedLS.graph.adjList.adjacencyList.get(gap1.end) != null) {
-                    int value = GreedLS.graph.adjList.adjacencyList.get(gap1.end).get(gap2.start).getRight();
-                    int cost = GreedLS.graph.adjList.adjacencyList.get(gap1.end).get(gap2.start).getLeft();
-                    if (GreedLS.graph.adjList.adjacencyList.get(gap1.end).get(gap2.start) != null
-                            && this.solution.totalCost + cost < QuerySetting.budgetTime) {
+                int a = network.findArc(gap1.end, gap2.start);
+                if (a != RoadNetwork.NO_ARC) {
+                    int value = network.arcValue(a);
+                    int cost = network.arcCost(a, timegap);
+                    if (this.solution.totalCost + cost < QuerySetting.budgetTime) {
                         timegap += cost;
                         this.solution.totalCost += cost;
                         this.solution.totalValue += value;
@@ -664,20 +884,52 @@ public class GreedLS {
     }
 
 
+    /**
+     * @return true if no gap from the gap of the queued arc, or from the
+     * first gap that replaced it, to the gap ending where it ended has
+     * changed since the arc was scored, see Solution.version. Delayed
+     * gaps only count as changed on time-dependent networks.
+     */
+    private boolean isCurrent(QueuedArc queued) {
+        for (Gap g = this.solution.current(queued.gap); g != null; g = g.next) {
+            if (g.version > queued.stamp) return false;
+            if (g.end == queued.gap.end) break;
+        }
+        return true;
+    }
+
+
+    /**
+     * @return true if the sub-paths vi_vm and vn_vj, which are to replace
+     * gap, share no vertex with each other nor with the other gaps of the
+     * solution. Looks at the vertices of the two sub-paths only, see
+     * Solution.occupiedOutside.
+     */
+    private boolean isDisjoint(Gap gap, Gap vi_vm, Gap vn_vj) {
+        if (++this.pathStamp == 0) {
+            Arrays.fill(this.pathMark, 0);
+            this.pathStamp = 1;
+        }
+        for (int v : vi_vm.vexIDList) {
+            if (this.solution.occupiedOutside(v, gap)) return false;
+            this.pathMark[v] = this.pathStamp;
+        }
+        for (int v : vn_vj.vexIDList) {
+            if (this.pathMark[v] == this.pathStamp || this.solution.occupiedOutside(v, gap)) return false;
+        }
+        return true;
+    }
+
+
     /**
      * Remove arc in the path in the gap g from the tempArc
      */
     public void removePathFromtempArc(Gap g) {
         int preVid = -1;
-        Arc arc;
         for (int vid : g.vexIDList) {
             //if(this.tempVerticeEALD_map!=null) this.tempVerticeEALD_map.remove(vid); //remove from V''
             if (preVid != -1) {//remove from G''
-                arc = new Arc();
-                arc.source = preVid;
-                arc.target = vid;
-                arc.cost_value_list = GreedLS.graph.adjList.adjacencyList.get(preVid).get(vid);
-                this.tempCAS.remove(arc);
+                this.tempCAS.remove(preVid, vid);
             }//else do nothing
             preVid = vid;
         }
@@ -695,38 +947,32 @@ public class GreedLS {
         /**
          * Insert arcs.
          */
-        PriorityQueue<Pair<Double, Pair<Arc, Gap>>> arc_gap_queue =
-                new PriorityQueue<Pair<Double,
-                        Pair<Arc, Gap>>>(10,
-                        new Comparator<Pair<Double,
-                                Pair<Arc, Gap>>>() {
-                            public int compare(Pair<Double, Pair<Arc, Gap>> p1,
-                                               Pair<Double, Pair<Arc, Gap>> p2) {
-                                if (p1.getLeft() > p2.getLeft()) return -1;
-                                if (p1.getLeft().equals(p2.getLeft())) return 0;
-                                return +1;
-                            }
-                        });
+        PriorityQueue<QueuedArc> arc_gap_queue = this.arcQueue;
+        arc_gap_queue.clear();
 
         this.tempCAS.clear();
-        this.tempVerticeEALD_map.clear();
-
-        for (Gap gap : this.solution.gapList) {
-            //======candidate calculation
-            programCurTime = System.currentTimeMillis();
-            this.calculateCandidateArcSet(gap, QuerySetting.budgetTime);
-            GreedLS.calculateCandArcTime += System.currentTimeMillis() - programCurTime;
-            //======arc selection
-            programCurTime = System.currentTimeMillis();
-            for (Arc candArc : this.CurIntersectionArc) {
-                if (this.InSolution(candArc)) continue;
-                double criteria = this.calEuclideanCriteria(gap, candArc); //Euclidean selection
-
-                /* Rank the arcs by their criteria */
-                arc_gap_queue.add(new Pair<Double, Pair<Arc, Gap>>
-                        (criteria, new Pair<Arc, Gap>(candArc, gap)));
+        Arrays.fill(this.tempVerticeEALD_map, 0);
+
+        /**
+         * Candidates of every gap, generated and scored independently; 
+         * then V' is added to V'', G' to G'' and the candidates to the
+         * queue, in the order of the gaps.
+         */
+        RoadNetwork network = GreedLS.graph.network;
+        for (GapCandidates candidates : this.generateCandidates(this.solution.gapList)) {
+            for (int v : candidates.arcSet.vertices) {
+                this.tempVerticeEALD_map[v >>> 6] |= 1L << v;
             }
-            GreedLS.arcSelectionTime += System.currentTimeMillis() - programCurTime;
+            for (int a : candidates.arcSet.arcs) {
+                this.tempCAS.add(network.arcSource(a), network.arcTarget(a));
+            }
+            for (int v : candidates.bufferRemovals) {
+                this.EALDBuffer.remove(v);
+            }
+            /* Rank the arcs by their criteria */
+            arc_gap_queue.addAll(candidates.queued);
+            GreedLS.calculateCandArcTime += candidates.candidateTime;
+            GreedLS.arcSelectionTime += candidates.selectionTime;
         }
         programCurTime = System.currentTimeMillis();
         GreedLS.outputWriter.print("G size: " + this.tempCAS.size() + "\t");
@@ -741,73 +987,75 @@ public class GreedLS {
         while (this.solution.totalCost <= QuerySetting.budgetTime
                 && arc_gap_queue.size() > 0) {//&& insertNUM<3
             insertNUM++;
-            Pair<Double, Pair<Arc, Gap>> arc_gap_pair = arc_gap_queue.poll();
-            if (arc_gap_pair == null) continue;
+            QueuedArc queued = arc_gap_queue.poll();
+            if (queued == null) continue;
+            Arc arc = queued.arc;
 
             /**
-             * To find the closestGap within the gap in arc_gap_pair in the solution.
+             * To find the closestGap within the gap of the queued arc in the solution.
+             * The arc keeps its criteria and closestGap as long as none of these
+             * gaps has changed since they were calculated. Otherwise they are
+             * calculated again, like the criteria of new candidates, and the arc
+             * goes back into the queue if it is no longer ahead of the next one.
              */
-            Gap closestGap = new Gap();
-            double bestCriteria = 0 - Double.MAX_VALUE;
-            Boolean trigger = false;
-            for (Gap solgap : this.solution.gapList) {
-                if (solgap.start == arc_gap_pair.getRight().getRight().start) {
-                    trigger = true;
-                }
-                if (trigger == true) {
-                    /* Euclidean selection */
-                    double criteriaInsert = this.calEuclideanCriteria(solgap,
-                            arc_gap_pair.getRight().getLeft());
+            Gap closestGap = queued.closest;
+            if (!this.isCurrent(queued)) {
+                closestGap = new Gap();
+                double bestCriteria = 0 - Double.MAX_VALUE;
+                //---the gap of the arc, or the gaps that replaced it by now
+                for (Gap solgap = this.solution.current(queued.gap); solgap != null; solgap = solgap.next) {
+                    double criteriaInsert = this.scoreArc(solgap, arc);
                     if (bestCriteria < criteriaInsert) {
                         bestCriteria = criteriaInsert;
                         closestGap = solgap;
                     }
-                    if (solgap.end == arc_gap_pair.getRight().getRight().end) break;
+                    if (solgap.end == queued.gap.end) break;
+                }
+                if (closestGap.isEmpty()) {
+                    this.tempCAS.remove(arc.source, arc.target);
+                    continue;
+                }
+                if (!arc_gap_queue.isEmpty() && bestCriteria < arc_gap_queue.peek().criteria) {
+                    arc_gap_queue.add(new QueuedArc(bestCriteria, arc, queued.gap, closestGap, this.solution.version));
+                    continue;
                 }
             }
             /**
-             * To insert the arc in arc_gap_pair (arc_gap_pair.getRight().getLeft())
+             * To insert the arc
              * between the closestGap in the solution.
              */
             int starttime_vi_vm = closestGap.actualStarttime;
             Gap best_vi_vm = findTDSP.tdsp(closestGap.start,
-                    arc_gap_pair.getRight().getLeft().source,
-                    GreedLS.TimeCost2Idx(starttime_vi_vm));
-            int starttime_vn_vj_int = starttime_vi_vm + best_vi_vm.SPCost;
-            Gap best_vn_vj = findTDSP.tdsp(arc_gap_pair.getRight().getLeft().target,
-                    closestGap.end, GreedLS.TimeCost2Idx(starttime_vn_vj_int));
+                    arc.source,
+                    starttime_vi_vm, FindTDSP.pointToPointMode);
+            if (best_vi_vm.SPCost == Integer.MAX_VALUE) {
+                this.tempCAS.remove(arc.source, arc.target);
+                continue;
+            }
+            int arc_vm_vn = arc.index;
+            int cost_vm_vn = GreedLS.graph.network.arcCost(arc_vm_vn, starttime_vi_vm + best_vi_vm.SPCost);
+            int starttime_vn_vj_int = starttime_vi_vm + best_vi_vm.SPCost + cost_vm_vn;
+            Gap best_vn_vj = findTDSP.tdsp(arc.target,
+                    closestGap.end, starttime_vn_vj_int, FindTDSP.pointToPointMode);
+            if (best_vn_vj.SPCost == Integer.MAX_VALUE) {
+                this.tempCAS.remove(arc.source, arc.target);
+                continue;
+            }
 
             /* BELOW MODIFIED: to disallow same vertex to be walked through more than once */
-            HashSet<Integer> remainedVertices = new HashSet<Integer>();
-            for (Gap gap : this.solution.gapList) {
-                if (gap != closestGap) {
-                    remainedVertices.addAll(gap.vexIDList);
-                }
-            }
-            HashSet<Integer> ViVmSet = new HashSet<Integer>(best_vi_vm.vexIDList);
-            HashSet<Integer> VnVjSet = new HashSet<Integer>(best_vn_vj.vexIDList);
-            HashSet<Integer> s = new HashSet<Integer>(ViVmSet);
-            s.retainAll(VnVjSet);
-            ViVmSet.retainAll(remainedVertices);
-            VnVjSet.retainAll(remainedVertices);
-            if (ViVmSet.size() > 0 || VnVjSet.size() > 0 || s.size() > 0) {
-                this.tempCAS.remove(arc_gap_pair.getRight().getLeft());
+            if (!this.isDisjoint(closestGap, best_vi_vm, best_vn_vj)) {
+                this.tempCAS.remove(arc.source, arc.target);
                 continue;
             }
             /* ABOVE MODIFIED */
 
-            Pair<Integer, Integer> cost_value_list_vm_vn =
-                    GreedLS.graph.adjList.adjacencyList.get(
-                            arc_gap_pair.getRight().getLeft().source).get(
-                            arc_gap_pair.getRight().getLeft().target);
-            int idx_vm = GreedLS.TimeCost2Idx(starttime_vi_vm + (int) best_vi_vm.SPCost);
             int best_new_value = best_vi_vm.collectedValue +
                     best_vn_vj.collectedValue +
-                    cost_value_list_vm_vn.getRight();
+                    GreedLS.graph.network.arcValue(arc_vm_vn);
             int bestDeltaValue = best_new_value - closestGap.collectedValue;
             int best_new_cost = best_vi_vm.SPCost +
                     best_vn_vj.SPCost +
-                    cost_value_list_vm_vn.getLeft();
+                    cost_vm_vn;
             int bestDeltaCost = best_new_cost - closestGap.SPCost;
 
             if ((bestDeltaValue > 0 || bestDeltaCost < 0) &&
@@ -825,16 +1073,16 @@ public class GreedLS {
                  */
                 this.removePathFromtempArc(best_vi_vm);
                 this.removePathFromtempArc(best_vn_vj);
-                this.tempCAS.remove(arc_gap_pair.getRight().getLeft());
+                this.tempCAS.remove(arc.source, arc.target);
             } else {
-                this.tempCAS.remove(arc_gap_pair.getRight().getLeft());
+                this.tempCAS.remove(arc.source, arc.target);
             }
         }
         GreedLS.arcSelectionTime += System.currentTimeMillis() - programCurTime;
-        this.CAS.clear();
-        this.CAS.addAll(this.tempCAS); //--recalcuate
-        this.verticeEALD_map.clear();
-        this.verticeEALD_map.putAll(this.tempVerticeEALD_map); //--recalcuate
+        this.CAS.swap(this.tempCAS); //--recalcuate
+        long[] swap = this.verticeEALD_map; //--recalcuate
+        this.verticeEALD_map = this.tempVerticeEALD_map;
+        this.tempVerticeEALD_map = swap;
 
 //        this.ArrageSolution();
     }
@@ -857,54 +1105,31 @@ public class GreedLS {
                 StandardCharsets.UTF_8);
         for (String stpair : querylines) {
             String[] parts = stpair.split(",");
-            QuerySetting.SourceVexID = Integer.parseInt(parts[0]);
-            QuerySetting.TargetVexID = Integer.parseInt(parts[1]);
+            /* node IDs of the input files --> dense vertex IDs */
+            QuerySetting.SourceVexID = graph.ids.parse(parts[0]);
+            QuerySetting.TargetVexID = graph.ids.parse(parts[1]);
+            if (QuerySetting.SourceVexID == Vertex.INVALID_ID || QuerySetting.TargetVexID == Vertex.INVALID_ID) {
+                GreedLS.outputWriter.println("Unknown vertex in query: " + stpair);
+                continue;
+            }
             QuerySetting.budgetTime = Integer.parseInt(parts[2]);
             QuerySetting.runingTimeThreshold = Integer.parseInt(parts[3]);
+            /* optional: index of the 15-minute interval to depart in */
+            QuerySetting.startTime = (parts.length > 4) ? Integer.parseInt(parts[4].trim()) : 0;
 
             /* BELOW MODIFIED: to allow source and target to be same vertex */
+            graph.clearVertexCopies();
             if (QuerySetting.SourceVexID == QuerySetting.TargetVexID) {
-                int sourceCopyId = graph.vertices.size();
-                QuerySetting.TargetVexID = sourceCopyId;
-
-                // this does not actually copy the HashMap but just a reference
-                Map<Integer, Pair<Integer, Integer>> sourceCopyAdjMap = graph.adjList.adjacencyList.get(QuerySetting.SourceVexID);
-                if (sourceCopyAdjMap != null) {
-                    graph.adjList.adjacencyList.put(sourceCopyId, new HashMap<Integer, Pair<Integer, Integer>>());
-                    (graph.adjList.adjacencyList.get(sourceCopyId)).putAll(sourceCopyAdjMap);
-                }
-                Map<Integer, Pair<Integer, Integer>> sourceCopyRevAdjMap = graph.adjList.reverse_adjacencyList.get(QuerySetting.SourceVexID);
-                if (sourceCopyRevAdjMap != null) {
-                    graph.adjList.reverse_adjacencyList.put(sourceCopyId, new HashMap<Integer, Pair<Integer, Integer>>());
-                    (graph.adjList.reverse_adjacencyList.get(sourceCopyId)).putAll(sourceCopyRevAdjMap);
-                }
-
-                for (Map.Entry<Integer, Map<Integer, Pair<Integer, Integer>>> entry : graph.adjList.adjacencyList.entrySet()) {
-                    // if this vertex point to source, do copy
-                    if (entry.getValue().containsKey(QuerySetting.SourceVexID)) {
-                        Pair<Integer, Integer> p = entry.getValue().get(QuerySetting.SourceVexID);
-                        entry.getValue().put(sourceCopyId, p);
-                    }
-                }
-                for (Map.Entry<Integer, Map<Integer, Pair<Integer, Integer>>> entry : graph.adjList.reverse_adjacencyList.entrySet()) {
-                    // if this vertex point to source, do copy
-                    if (entry.getValue().containsKey(QuerySetting.SourceVexID)) {
-                        Pair<Integer, Integer> p = entry.getValue().get(QuerySetting.SourceVexID);
-                        entry.getValue().put(sourceCopyId, p);
-                    }
-                }
-
-                Vertex sourceVertex = graph.vertices.get(QuerySetting.SourceVexID);
-                Vertex sourceVertexCopy = new Vertex(sourceCopyId, sourceVertex.getLat(), sourceVertex.getLng());
-                graph.vertices.add(sourceVertexCopy);
+                // add a virtual vertex that copies all the arcs of the source
+                QuerySetting.TargetVexID = graph.addVertexCopy(QuerySetting.SourceVexID);
             }
-            System.out.println(graph.vertices.size() + " vertices in graph.");
+            System.out.println(graph.network.vertexCount() + " vertices in graph.");
             /* ABOVE IS MODIFIED */
 
             Gap sp = new Gap();
             sp = findTDSP.tdsp(QuerySetting.SourceVexID,
                     QuerySetting.TargetVexID,
-                    GreedLS.Idx2TimeCost(QuerySetting.startTime));
+                    GreedLS.Idx2TimeCost(QuerySetting.startTime), FindTDSP.pointToPointMode);
             //double budgetDouble = 2.0*sp.SPCost;
             //QuerySetting.budgetTime = (int)budgetDouble;
 
@@ -915,9 +1140,9 @@ public class GreedLS {
             GreedLS.outputWriter.println("------------------");
             GreedLS.outputWriter.println("Query Setting:\n"
                     + "source: "
-                    + QuerySetting.SourceVexID
+                    + graph.ids.toExternal(QuerySetting.SourceVexID)
                     + "\ttarget: "
-                    + QuerySetting.TargetVexID
+                    + graph.ids.toExternal(graph.baseVertex(QuerySetting.TargetVexID))
                     + "\tstartTime: "
                     + QuerySetting.startTime
                     + "\tTDSP: "
@@ -970,10 +1195,13 @@ public class GreedLS {
             /* BELOW MODIFIED: print output to file */
             LinkedList<Integer> pathList = new LinkedList<Integer>();
             for (Gap gap : this.solution.gapList) {
-                pathList.addAll(gap.vexIDList);
+                for (int vid : gap.vexIDList) {
+                    pathList.add(graph.ids.toExternal(graph.baseVertex(vid))); //---dense --> node IDs of the input files
+                }
             }
             GreedLS.outputWriter.println(pathList);
             /* ABOVE MODIFIED */
+            if (FindTDSP.pathCache != null) System.out.println("Path cache: " + FindTDSP.pathCache);
         }//end for each queryline
         GreedLS.outputWriter.close();
     }
@@ -0,0 +1,323 @@
+package greedLS;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Landmarks for the ALT lower bounds (A*, landmarks, triangle inequality)
+ * on travel times, see Graph.landmarkCount.
+ *
+ * For every landmark L and vertex v the travel time from L to v and from
+ * v to L is precomputed with the smallest cost of each arc over the day,
+ * so the bounds hold for every departure time. By the triangle inequality
+ *   d(v, t) >= d(v, L) - d(t, L)   and   d(v, t) >= d(L, t) - d(L, v)
+ * and the largest of these over the landmarks is a lower bound of the
+ * travel time from v to t. The bound is consistent: it never decreases by
+ * more than the cost of an arc, as A* requires.
+ *
+ * FARTHEST picks each landmark as far as possible from the previous ones;
+ * AVOID grows a shortest path tree from a random root and descends into
+ * the subtree whose vertices have the worst bounds so far (Goldberg and
+ * Werneck).
+ *
+ * Layout of the landmark file (big-endian):
+ *   int magic, int version, int vertexCount, int arcCount, int count, int selection
+ *   int[vertexCount] external vertex ID, int[count] landmarks
+ *   int[vertexCount*count] from, int[vertexCount*count] to
+ */
+public class Landmarks {
+	public static final String FARTHEST = "FARTHEST";
+	public static final String AVOID = "AVOID";
+
+	public static final int MAGIC = 0x474C534C; //"GLSL"
+	public static final int VERSION = 1;
+
+	/* Travel time to or from an unreachable vertex */
+	public static final int INFINITY = Integer.MAX_VALUE;
+
+	private static final int HEADER_BYTES = 6 * 4;
+
+	/* Landmark vertices */
+	public final int[] landmarks;
+	private final int count;
+
+	/* Travel times from / to landmark i, at [v*count+i] */
+	private final int[] from;
+	private final int[] to;
+
+	private Landmarks(int[] landmarks, int[] from, int[] to) {
+		this.landmarks = landmarks;
+		this.count = landmarks.length;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * @return a lower bound of the travel time from v to t, or INFINITY
+	 *         if t cannot be reached from v.
+	 */
+	public int lowerBound(int v, int t) {
+		return bound(v, t, this.count);
+	}
+
+	/**
+	 * Lower bound from the first k landmarks.
+	 */
+	private int bound(int v, int t, int k) {
+		int best = 0;
+		int iv = v * this.count;
+		int it = t * this.count;
+		for (int i = 0; i < k; i++) {
+			int vl = this.to[iv + i];
+			int tl = this.to[it + i];
+			if (tl != INFINITY) {
+				if (vl == INFINITY) return INFINITY; //---t reaches L but v does not
+				if (vl - tl > best) best = vl - tl;
+			}
+			int lv = this.from[iv + i];
+			int lt = this.from[it + i];
+			if (lv != INFINITY) {
+				if (lt == INFINITY) return INFINITY; //---L reaches v but not t
+				if (lt - lv > best) best = lt - lv;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Load the landmarks of the graph from file if the file is up to date
+	 * and was built for the same graph, count and selection; otherwise
+	 * select them and write the file.
+	 *
+	 * @return the landmarks, or null if count is 0.
+	 */
+	public static Landmarks prepare(Graph graph, String filename, int count, String selection,
+			String... sources) {
+		if (count <= 0) return null;
+		long start = System.currentTimeMillis();
+		if (filename != null && GraphSnapshot.isFresh(filename, sources)) {
+			try {
+				Landmarks result = load(graph, filename, count, selection);
+				System.out.println("Loaded " + count + " landmarks from " + filename + " in "
+						+ (System.currentTimeMillis() - start) + " ms");
+				return result;
+			} catch (IOException e) {
+				System.err.println(e.getMessage() + ", selecting the landmarks again");
+			}
+		}
+		Landmarks result = select(graph.base, count, selection);
+		System.out.println("Selected " + count + " landmarks (" + selection + ") in "
+				+ (System.currentTimeMillis() - start) + " ms");
+		if (filename != null) {
+			try {
+				result.write(graph, filename, selection);
+			} catch (IOException e) {
+				System.err.println("Cannot write " + filename + ": " + e.getMessage());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Select count landmarks and compute their travel times.
+	 */
+	public static Landmarks select(CSRGraph g, int count, String selection) {
+		if (!FARTHEST.equals(selection) && !AVOID.equals(selection))
+			throw new IllegalArgumentException("unknown landmark selection " + selection);
+		int n = g.vertexCount();
+		count = Math.min(count, n);
+		Landmarks result = new Landmarks(new int[count], new int[n * count], new int[n * count]);
+		int[] parent = new int[n];
+		int[] order = new int[n];
+		int[] nearest = new int[n]; //---travel time from the closest landmark
+		Arrays.fill(nearest, INFINITY);
+		Random rnd = new Random(1);
+		boolean[] chosen = new boolean[n];
+
+		for (int i = 0; i < count; i++) {
+			int l;
+			if (i == 0 && FARTHEST.equals(selection)) {
+				l = farthest(dijkstra(g, rnd.nextInt(n), false, parent, order), chosen);
+			} else if (FARTHEST.equals(selection)) {
+				l = farthest(nearest, chosen);
+			} else {
+				l = avoid(g, result, i, rnd, chosen, parent, order);
+			}
+			chosen[l] = true;
+			result.landmarks[i] = l;
+			int[] d = dijkstra(g, l, false, parent, order);
+			for (int v = 0; v < n; v++) {
+				result.from[v * count + i] = d[v];
+				if (d[v] < nearest[v]) nearest[v] = d[v];
+			}
+			d = dijkstra(g, l, true, parent, order);
+			for (int v = 0; v < n; v++) result.to[v * count + i] = d[v];
+		}
+		return result;
+	}
+
+	/**
+	 * @return the vertex not chosen yet with the largest time, unreachable
+	 *         vertices first.
+	 */
+	private static int farthest(int[] time, boolean[] chosen) {
+		int best = -1;
+		for (int v = 0; v < time.length; v++) {
+			if (!chosen[v] && (best < 0 || time[v] > time[best])) best = v;
+		}
+		return best;
+	}
+
+	/**
+	 * Avoid selection: the weight of a vertex of the shortest path tree
+	 * of a random root r is d(r, v) minus the current bound; descend from
+	 * r into the heaviest subtree without a landmark down to a leaf.
+	 */
+	private static int avoid(CSRGraph g, Landmarks result, int k, Random rnd, boolean[] chosen,
+			int[] parent, int[] order) {
+		int n = g.vertexCount();
+		int root;
+		do {
+			root = rnd.nextInt(n);
+		} while (chosen[root]);
+		int[] d = dijkstra(g, root, false, parent, order);
+		int reached = 0;
+		while (reached < n && order[reached] >= 0) reached++;
+
+		long[] size = new long[n];
+		boolean[] blocked = new boolean[n]; //---subtree holds a landmark
+		for (int j = reached - 1; j >= 0; j--) {
+			int v = order[j];
+			if (chosen[v]) blocked[v] = true;
+			if (!blocked[v]) size[v] += d[v] - (k > 0 ? result.bound(root, v, k) : 0);
+			else size[v] = 0;
+			int p = parent[v];
+			if (p >= 0) {
+				if (blocked[v]) blocked[p] = true;
+				else size[p] += size[v];
+			}
+		}
+		//---children of each vertex in the tree, as lists in order[]
+		int[] firstChild = new int[n];
+		int[] nextSibling = new int[n];
+		Arrays.fill(firstChild, -1);
+		for (int j = reached - 1; j > 0; j--) {
+			int v = order[j];
+			nextSibling[v] = firstChild[parent[v]];
+			firstChild[parent[v]] = v;
+		}
+		int v = root;
+		while (true) {
+			int best = -1;
+			for (int c = firstChild[v]; c >= 0; c = nextSibling[c]) {
+				if (!blocked[c] && (best < 0 || size[c] > size[best])) best = c;
+			}
+			if (best < 0) break;
+			v = best;
+		}
+		return v;
+	}
+
+	/**
+	 * Dijkstra with the smallest arc costs from s, over the reverse arcs
+	 * if reverse is set.
+	 *
+	 * @param parent filled with the tree parent of each reached vertex, or -1
+	 * @param order filled with the vertices in the order they are settled,
+	 *        followed by -1 if not all are reached
+	 * @return the travel time of every vertex, INFINITY if unreached.
+	 */
+	private static int[] dijkstra(CSRGraph g, int s, boolean reverse, int[] parent, int[] order) {
+		int n = g.vertexCount();
+		int[] d = new int[n];
+		Arrays.fill(d, INFINITY);
+		Arrays.fill(parent, -1);
+		DaryHeap q = new DaryHeap(n);
+		d[s] = 0;
+		q.push(s, 0);
+		int settled = 0;
+		while (!q.isEmpty()) {
+			int v = q.pop();
+			order[settled++] = v;
+			if (reverse) {
+				for (int r = g.firstIn(v); r != RoadNetwork.NO_ARC; r = g.nextIn(v, r)) {
+					int w = g.inSource(r);
+					long dw = (long) d[v] + g.arcMinCost(g.inArc(r));
+					if (dw < d[w]) {
+						d[w] = (int) dw;
+						parent[w] = v;
+						q.push(w, d[w]);
+					}
+				}
+			} else {
+				for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+					int w = g.arcTarget(a);
+					long dw = (long) d[v] + g.arcMinCost(a);
+					if (dw < d[w]) {
+						d[w] = (int) dw;
+						parent[w] = v;
+						q.push(w, d[w]);
+					}
+				}
+			}
+		}
+		if (settled < n) order[settled] = -1;
+		return d;
+	}
+
+	private void write(Graph graph, String filename, String selection) throws IOException {
+		int n = graph.base.vertexCount();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(n);
+			out.writeInt(graph.base.arcCount());
+			out.writeInt(this.count);
+			out.writeInt(AVOID.equals(selection) ? 1 : 0);
+			for (int v = 0; v < n; v++) out.writeInt(graph.ids.toExternal(v));
+			for (int x : this.landmarks) out.writeInt(x);
+			for (int x : this.from) out.writeInt(x);
+			for (int x : this.to) out.writeInt(x);
+		}
+	}
+
+	private static Landmarks load(Graph graph, String filename, int count, String selection)
+			throws IOException {
+		try (FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			int n = graph.base.vertexCount();
+			if (header.getInt() != MAGIC || header.getInt() != VERSION)
+				throw new IOException(filename + ": not a landmark file of this version");
+			if (header.getInt() != n || header.getInt() != graph.base.arcCount()
+					|| header.getInt() != Math.min(count, n)
+					|| header.getInt() != (AVOID.equals(selection) ? 1 : 0))
+				throw new IOException(filename + ": built for another graph or setting");
+			count = Math.min(count, n);
+
+			long pos = HEADER_BYTES;
+			int[] ids = new int[n];
+			pos = GraphSnapshot.readInts(ch, pos, ids);
+			for (int v = 0; v < n; v++) {
+				if (ids[v] != graph.ids.toExternal(v))
+					throw new IOException(filename + ": built for another vertex order");
+			}
+			Landmarks result = new Landmarks(new int[count], new int[n * count], new int[n * count]);
+			pos = GraphSnapshot.readInts(ch, pos, result.landmarks);
+			pos = GraphSnapshot.readInts(ch, pos, result.from);
+			pos = GraphSnapshot.readInts(ch, pos, result.to);
+			if (pos != ch.size())
+				throw new IOException(filename + ": truncated or corrupted landmark file");
+			return result;
+		}
+	}
+}
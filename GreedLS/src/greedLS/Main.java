@@ -22,6 +22,79 @@ public class Main {
 		 */
 		//String startSolution = "SP"; 
 		
+		/**
+		 * Renumber the vertices for locality before the graph is loaded,
+		 * see VertexOrder.
+		 */
+		//Graph.vertexOrder = VertexOrder.HILBERT;
+		
+		/**
+		 * Select landmarks for lower bounds on travel times; they prune
+		 * the reachability searches and direct the ASTAR searches.
+		 */
+		//Graph.landmarkCount = 16;
+		//FindTDSP.pointToPointMode = FindTDSP.ASTAR;
+		
+		/**
+		 * Contract the graph for point-to-point queries, if its travel 
+		 * times do not depend on the time of day.
+		 */
+		//Graph.contractionHierarchy = true;
+		//FindTDSP.pointToPointMode = FindTDSP.CONTRACTION;
+		
+		/**
+		 * Score candidate arcs with plane distances, for graphs 
+		 * whose coordinates are not latitude / longitude.
+		 */
+		//GreedLS.distanceMode = Coordinates.PLANAR;
+		
+		/**
+		 * Rank the candidate arcs by the exact travel times of the 
+		 * detour instead of distances.
+		 */
+		//GreedLS.criteria = GreedLS.TDSP_CRITERIA;
+		
+		/**
+		 * Search and score the candidate arcs of every gap again in 
+		 * every iteration, even if the gap has not changed.
+		 */
+		//GreedLS.candidateArcCache = false;
+		
+		/**
+		 * Generate the candidate arcs of the gaps in the calling thread 
+		 * only, instead of one task per gap on all the processors.
+		 */
+		//GreedLS.parallelism = 1;
+		
+		/**
+		 * Rank only the best candidate arcs of each gap for insertion.
+		 */
+		//GreedLS.candidatesPerGap = 100;
+		
+		/**
+		 * Point-to-point shortest paths searched from both ends on 
+		 * static graphs. Faster than the forward search, but among 
+		 * paths of equal travel time it may pick another one, and so 
+		 * another collected value and solution.
+		 */
+		//FindTDSP.pointToPointMode = FindTDSP.BIDIRECTIONAL;
+		
+		/**
+		 * Search every point-to-point shortest path again instead of 
+		 * reusing the path of the same pair. The results are the same: 
+		 * on time-dependent graphs a path is only reused for the same 
+		 * start time and the same pointToPointMode, so the cache mostly 
+		 * helps static graphs, at the cost of up to 
+		 * PathCache.DEFAULT_CAPACITY bytes (64 MB) of memory.
+		 */
+		//FindTDSP.pathCache = null;
+
+		/**
+		 * Priority queue of the searches: a radix heap instead of the
+		 * 4-ary heap, see bench/greedLS/QueueBenchmark.
+		 */
+		//SearchWorkspace.queueType = VertexQueue.RADIX_HEAP;
+
 		GreedLS greedLS = new GreedLS();
 		greedLS.startSolution = startSolution;
 		greedLS.GreedLSAlgorithm(QuerySetting.budgetTime);
@@ -0,0 +1,243 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Per-query view of the road network with virtual vertices on top of an
+ * unchanged base graph.
+ *
+ * Virtual vertex n+i (n = base.vertexCount()) is a copy of base vertex
+ * copies[i]: it has a virtual arc for every arc leaving or entering the
+ * copied vertex, with the same cost and value. Virtual arcs are numbered
+ * after the base arcs (m, m+1, ...) and so are their reverse entries.
+ * Arcs between two copied vertices are only copied on the base side.
+ *
+ * Building the overlay costs O(deg) of the copied vertices; the base
+ * graph is neither copied nor modified and can be shared between queries.
+ */
+public class OverlayNetwork implements RoadNetwork {
+	private final CSRGraph base;
+	private final int n;
+	private final int m;
+
+	/* Base vertex copied by each virtual vertex */
+	private final int[] copies;
+
+	/* Virtual arcs, grouped by source */
+	private final int[] arcSources;
+	private final int[] arcTargets;
+	private final int[] baseArcs; //base arc providing cost and value
+
+	/* Sources of virtual arcs and the index of their first virtual arc */
+	private final int[] outVertices;
+	private final int[] outFirst;
+
+	/* Virtual reverse entries, grouped by target: the virtual arc index */
+	private final int[] inArcs;
+	private final int[] inTargets;
+	private final int[] inVertices;
+	private final int[] inFirst;
+
+	public OverlayNetwork(CSRGraph base, int[] copies) {
+		this.base = base;
+		this.n = base.vertexCount();
+		this.m = base.arcCount();
+		this.copies = copies.clone();
+
+		int k = 0;
+		for (int v : copies) {
+			k += (base.outOffsets[v + 1] - base.outOffsets[v]) + (base.inOffsets[v + 1] - base.inOffsets[v]);
+		}
+		int[] src = new int[k];
+		int[] tgt = new int[k];
+		int[] arc = new int[k];
+		int j = 0;
+		for (int i = 0; i < copies.length; i++) {
+			int copy = this.n + i;
+			for (int a = base.firstOut(copies[i]); a != NO_ARC; a = base.nextOut(copies[i], a), j++) {
+				src[j] = copy;
+				tgt[j] = base.arcTarget(a);
+				arc[j] = a;
+			}
+			for (int r = base.firstIn(copies[i]); r != NO_ARC; r = base.nextIn(copies[i], r), j++) {
+				src[j] = base.inSource(r);
+				tgt[j] = copy;
+				arc[j] = base.inArc(r);
+			}
+		}
+
+		//---group the virtual arcs by source, and their reverse entries by target
+		int[] bySource = order(src);
+		this.arcSources = new int[k];
+		this.arcTargets = new int[k];
+		this.baseArcs = new int[k];
+		for (j = 0; j < k; j++) {
+			this.arcSources[j] = src[bySource[j]];
+			this.arcTargets[j] = tgt[bySource[j]];
+			this.baseArcs[j] = arc[bySource[j]];
+		}
+		this.inArcs = order(this.arcTargets);
+		this.inTargets = new int[k];
+		for (j = 0; j < k; j++) this.inTargets[j] = this.arcTargets[this.inArcs[j]];
+
+		int[][] out = firstOfRuns(this.arcSources);
+		this.outVertices = out[0];
+		this.outFirst = out[1];
+		int[][] in = firstOfRuns(this.inTargets);
+		this.inVertices = in[0];
+		this.inFirst = in[1];
+	}
+
+	/**
+	 * @return the indices of keys in ascending order of key, stable.
+	 */
+	private static int[] order(int[] keys) {
+		long[] pairs = new long[keys.length];
+		for (int i = 0; i < keys.length; i++) pairs[i] = ((long) keys[i] << 32) | i;
+		Arrays.sort(pairs);
+		int[] idx = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) idx[i] = (int) pairs[i];
+		return idx;
+	}
+
+	/**
+	 * @return the distinct values of a sorted array and the index of
+	 *         the first occurrence of each.
+	 */
+	private static int[][] firstOfRuns(int[] sorted) {
+		int runs = 0;
+		for (int i = 0; i < sorted.length; i++) if (i == 0 || sorted[i] != sorted[i - 1]) runs++;
+		int[] values = new int[runs];
+		int[] first = new int[runs];
+		runs = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[i - 1]) {
+				values[runs] = sorted[i];
+				first[runs++] = i;
+			}
+		}
+		return new int[][] { values, first };
+	}
+
+	/**
+	 * @return the base vertex of v: v itself, or the vertex v copies.
+	 */
+	public int baseVertex(int v) {
+		return v < this.n ? v : this.copies[v - this.n];
+	}
+
+	@Override
+	public int vertexCount() {
+		return this.n + this.copies.length;
+	}
+
+	@Override
+	public int arcCount() {
+		return this.m + this.arcSources.length;
+	}
+
+	@Override
+	public int firstOut(int v) {
+		if (v < this.n) {
+			int a = this.base.firstOut(v);
+			if (a != NO_ARC) return a;
+		}
+		return firstVirtual(this.outVertices, this.outFirst, v);
+	}
+
+	@Override
+	public int nextOut(int v, int a) {
+		if (a < this.m) {
+			a = this.base.nextOut(v, a);
+			return a != NO_ARC ? a : firstVirtual(this.outVertices, this.outFirst, v);
+		}
+		int j = a - this.m + 1;
+		return (j < this.arcSources.length && this.arcSources[j] == v) ? a + 1 : NO_ARC;
+	}
+
+	private int firstVirtual(int[] vertices, int[] first, int v) {
+		int i = Arrays.binarySearch(vertices, v);
+		return i >= 0 ? this.m + first[i] : NO_ARC;
+	}
+
+	@Override
+	public int arcSource(int a) {
+		return a < this.m ? this.base.arcSource(a) : this.arcSources[a - this.m];
+	}
+
+	@Override
+	public int arcTarget(int a) {
+		return a < this.m ? this.base.arcTarget(a) : this.arcTargets[a - this.m];
+	}
+
+	@Override
+	public int arcCost(int a, int time) {
+		return this.base.arcCost(a < this.m ? a : this.baseArcs[a - this.m], time);
+	}
+
+	@Override
+	public int arcValue(int a) {
+		return this.base.arcValue(a < this.m ? a : this.baseArcs[a - this.m]);
+	}
+
+	@Override
+	public int firstIn(int v) {
+		if (v < this.n) {
+			int r = this.base.firstIn(v);
+			if (r != NO_ARC) return r;
+		}
+		return firstVirtual(this.inVertices, this.inFirst, v);
+	}
+
+	@Override
+	public int nextIn(int v, int r) {
+		if (r < this.m) {
+			r = this.base.nextIn(v, r);
+			return r != NO_ARC ? r : firstVirtual(this.inVertices, this.inFirst, v);
+		}
+		int j = r - this.m + 1;
+		return (j < this.inTargets.length && this.inTargets[j] == v) ? r + 1 : NO_ARC;
+	}
+
+	@Override
+	public int inArc(int r) {
+		return r < this.m ? this.base.inArc(r) : this.m + this.inArcs[r - this.m];
+	}
+
+	@Override
+	public int inSource(int r) {
+		return r < this.m ? this.base.inSource(r) : this.arcSources[this.inArcs[r - this.m]];
+	}
+
+	@Override
+	public int inCost(int r, int time) {
+		return r < this.m ? this.base.inCost(r, time)
+				: this.base.arcCost(this.baseArcs[this.inArcs[r - this.m]], time);
+	}
+
+	@Override
+	public int inLatestDeparture(int r, int arrival) {
+		return r < this.m ? this.base.inLatestDeparture(r, arrival)
+				: this.base.arcLatestDeparture(this.baseArcs[this.inArcs[r - this.m]], arrival);
+	}
+
+	@Override
+	public int inValue(int r) {
+		return r < this.m ? this.base.inValue(r) : this.base.arcValue(this.baseArcs[this.inArcs[r - this.m]]);
+	}
+
+	@Override
+	public boolean isTimeDependent() {
+		return this.base.isTimeDependent();
+	}
+
+	@Override
+	public int findArc(int source, int target) {
+		if (source < this.n && target < this.n) return this.base.findArc(source, target);
+		for (int a = this.firstOut(source); a != NO_ARC; a = this.nextOut(source, a)) {
+			if (this.arcTarget(a) == target) return a;
+		}
+		return NO_ARC;
+	}
+}
@@ -0,0 +1,211 @@
+package greedLS;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded, thread-safe cache of point-to-point shortest paths, keyed by
+ * start vertex, end vertex, the 15-minute interval of the start time
+ * (CostProfiles.slot) and the search mode, see FindTDSP.tdsp(int, int,
+ * int, String): among paths of equal cost the modes may return different
+ * ones, so a mode only gets back the paths it found.
+ *
+ * The cache holds entries of at most capacity bytes in least-recently-used
+ * order; it is split into segments, each with its own lock and share of
+ * the capacity. An entry is weighed as its path array plus ENTRY_BYTES
+ * for its key, its Entry and its map node, as laid out by a 64-bit JVM
+ * with compressed references. Paths are stored as int arrays and every
+ * hit returns a new Gap, so callers may modify or keep the Gap they get.
+ *
+ * On a static network the start time is ignored. On a time-dependent
+ * network an entry only answers a search from the same start time: the
+ * shortest path from another start time of the interval may not be the
+ * shortest one any more. The interval is part of the key so that a later
+ * start time replaces the entry of an earlier one. Paths through the
+ * vertex copies of a query are not cached, since the copies change from
+ * one query to the next.
+ */
+public class PathCache {
+	/* 64 MB */
+	public static final long DEFAULT_CAPACITY = 64L << 20;
+
+	private static final int SEGMENTS = 16;
+	/* Key 32 bytes, Entry 32, int[] header 16, LinkedHashMap node 40, 
+	   table slot 8 at a load factor of 0.75 or less */
+	private static final int ENTRY_BYTES = 128;
+
+	private static final class Key {
+		final int start, end, slot;
+		final String mode;
+
+		Key(int start, int end, int slot, String mode) {
+			this.start = start;
+			this.end = end;
+			this.slot = slot;
+			this.mode = mode;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = this.start * 0x9E3779B1 + this.end;
+			return (h * 31 + this.slot) * 31 + this.mode.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key k = (Key) o;
+			return this.start == k.start && this.end == k.end && this.slot == k.slot
+					&& this.mode.equals(k.mode);
+		}
+	}
+
+	/**
+	 * Cached result; path is null if end cannot be reached.
+	 */
+	private static final class Entry {
+		final int[] path;
+		final int cost;
+		final int value;
+		final int startTime;
+
+		Entry(int[] path, int cost, int value, int startTime) {
+			this.path = path;
+			this.cost = cost;
+			this.value = value;
+			this.startTime = startTime;
+		}
+
+		int weight() {
+			return ENTRY_BYTES + (this.path == null ? 0 : 4 * this.path.length);
+		}
+	}
+
+	/**
+	 * Access-ordered map, guarded by its own lock.
+	 */
+	private static final class Segment {
+		final LinkedHashMap<Key, Entry> map = new LinkedHashMap<Key, Entry>(64, 0.75f, true);
+		long weight = 0;
+	}
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final long segmentCapacity;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public PathCache(long capacity) {
+		this.segmentCapacity = Math.max(1, capacity / SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++) this.segments[i] = new Segment();
+	}
+
+	private Segment segment(Key key) {
+		int h = key.hashCode();
+		return this.segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	private static int slot(RoadNetwork network, int startTime) {
+		return network.isTimeDependent() ? CostProfiles.slot(startTime) : 0;
+	}
+
+	/**
+	 * @return a new Gap with the cached path from start to end at 
+	 *         startTime found by a search in mode, or null if there is 
+	 *         none.
+	 */
+	public Gap get(RoadNetwork network, int start, int end, int startTime, String mode) {
+		Key key = new Key(start, end, slot(network, startTime), mode);
+		Segment s = this.segment(key);
+		Entry entry;
+		synchronized (s) {
+			entry = s.map.get(key);
+		}
+		if (entry == null || (network.isTimeDependent() && entry.startTime != startTime)) {
+			this.misses.increment();
+			return null;
+		}
+		this.hits.increment();
+
+		Gap gap = new Gap();
+		gap.start = start;
+		if (entry.path == null) {
+			// unreachable
+			gap.end = Vertex.INVALID_ID;
+			gap.SPCost = Integer.MAX_VALUE;
+			gap.collectedValue = 0;
+			return gap;
+		}
+		gap.end = end;
+		gap.actualStarttime = startTime;
+		for (int v : entry.path) gap.vexIDList.add(v);
+		gap.SPCost = entry.cost;
+		gap.collectedValue = entry.value;
+		return gap;
+	}
+
+	/**
+	 * Cache the result of a search in mode from gap.start to end at 
+	 * startTime, unless it uses a vertex copy: a vertex not below 
+	 * vertexCount.
+	 */
+	public void put(RoadNetwork network, Gap gap, int end, int startTime, String mode, int vertexCount) {
+		if (gap.start >= vertexCount || end >= vertexCount) return;
+		Entry entry;
+		if (gap.SPCost == Integer.MAX_VALUE) {
+			entry = new Entry(null, Integer.MAX_VALUE, 0, startTime);
+		} else {
+			int[] path = new int[gap.vexIDList.size()];
+			int i = 0;
+			for (int v : gap.vexIDList) {
+				if (v >= vertexCount) return;
+				path[i++] = v;
+			}
+			entry = new Entry(path, gap.SPCost, gap.collectedValue, startTime);
+		}
+		Key key = new Key(gap.start, end, slot(network, startTime), mode);
+		Segment s = this.segment(key);
+		synchronized (s) {
+			Entry old = s.map.put(key, entry);
+			s.weight += entry.weight() - (old == null ? 0 : old.weight());
+			Iterator<Map.Entry<Key, Entry>> it = s.map.entrySet().iterator();
+			while (s.weight > this.segmentCapacity && it.hasNext()) {
+				Entry eldest = it.next().getValue();
+				if (eldest == entry) continue;
+				it.remove();
+				s.weight -= eldest.weight();
+				this.evictions.increment();
+			}
+		}
+	}
+
+	public void clear() {
+		for (Segment s : this.segments) {
+			synchronized (s) {
+				s.map.clear();
+				s.weight = 0;
+			}
+		}
+	}
+
+	public long hits() {
+		return this.hits.sum();
+	}
+
+	public long misses() {
+		return this.misses.sum();
+	}
+
+	public long evictions() {
+		return this.evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "hits: " + this.hits() + "\tmisses: " + this.misses() + "\tevictions: " + this.evictions();
+	}
+}
@@ -5,8 +5,9 @@ public class QuerySetting {
 	public static int TargetVexID = 10; 
 	
 	/** 
-	 * Always use the road network at snapshot startTime=0. 
-	 * (i.e., static road network).
+	 * Index of the 15-minute interval the query departs in, read from the
+	 * optional fifth field of query.txt. Arc costs are evaluated at the
+	 * actual arrival time, see CostProfiles.
 	 */
 	public static int startTime = 0 ; 
 	
@@ -0,0 +1,174 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Indexed radix heap of vertices 0..capacity-1 with int keys and
+ * decrease-key, for monotone searches: no key may be pushed below the
+ * last key popped (or returned by minKey) since the last clear. Dijkstra
+ * with non-negative integer travel times (milliseconds) is monotone, and
+ * so are the reachability sweeps keyed by -LD.
+ *
+ * Keys are compared as unsigned after flipping the sign bit, so the
+ * ordering is that of int. Bucket 0 holds the vertices whose key equals
+ * the last minimum; bucket b > 0 those whose key first differs from it
+ * in bit b-1. When bucket 0 is empty, the smallest key of the first
+ * non-empty bucket becomes the minimum and that bucket is spread over
+ * the lower buckets; a vertex only moves down, at most 32 times, so an
+ * operation costs O(1) amortized plus O(32) per minimum, independent of
+ * the number of vertices in the heap.
+ *
+ * Buckets are doubly-linked lists through one array holding the four
+ * fields of each vertex side by side; no object is created per operation.
+ */
+public class RadixHeap implements VertexQueue {
+	private static final int BUCKETS = 33;
+
+	private int size = 0;
+	/* Unsigned last minimum */
+	private int last = 0;
+
+	/* First vertex of each bucket, or -1 */
+	private final int[] head = new int[BUCKETS];
+	/* Per vertex v, at node[4v..4v+3]: its bucket (or -1), unsigned key,
+	   next and previous vertex of the bucket */
+	private int[] node;
+
+	public RadixHeap(int capacity) {
+		this.node = new int[4 * capacity];
+		for (int v = 0; v < capacity; v++) this.node[4 * v] = -1;
+		Arrays.fill(this.head, -1);
+	}
+
+	/**
+	 * Remove all the vertices and allow vertices 0..capacity-1.
+	 */
+	@Override
+	public void clear(int capacity) {
+		for (int b = 0; b < BUCKETS; b++) {
+			for (int v = this.head[b]; v >= 0; v = this.node[4 * v + 2]) this.node[4 * v] = -1;
+			this.head[b] = -1;
+		}
+		this.size = 0;
+		this.last = 0;
+		int length = this.node.length / 4;
+		if (length < capacity) {
+			int c = Math.max(capacity, length + (length >> 3));
+			this.node = new int[4 * c];
+			for (int v = 0; v < c; v++) this.node[4 * v] = -1;
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean contains(int v) {
+		return this.node[4 * v] >= 0;
+	}
+
+	/**
+	 * @return the key of v; v must be in the heap.
+	 */
+	@Override
+	public int key(int v) {
+		return this.node[4 * v + 1] ^ Integer.MIN_VALUE;
+	}
+
+	/**
+	 * @return the smallest key; the heap must not be empty.
+	 */
+	@Override
+	public int minKey() {
+		this.fillFirstBucket();
+		return this.last ^ Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Insert v with key, or lower the key of v if it is in the heap
+	 * with a larger key.
+	 *
+	 * @throws IllegalArgumentException if key is below the last minimum.
+	 */
+	@Override
+	public void push(int v, int key) {
+		int u = key ^ Integer.MIN_VALUE;
+		if (Integer.compareUnsigned(u, this.last) < 0)
+			throw new IllegalArgumentException("key " + key + " below the last minimum "
+					+ (this.last ^ Integer.MIN_VALUE));
+		if (this.node[4 * v] >= 0) {
+			if (Integer.compareUnsigned(u, this.node[4 * v + 1]) >= 0) return;
+			this.unlink(v);
+		} else {
+			this.size++;
+		}
+		this.node[4 * v + 1] = u;
+		this.link(v, this.bucketOf(u));
+	}
+
+	/**
+	 * Remove a vertex with the smallest key.
+	 *
+	 * @return the vertex.
+	 */
+	@Override
+	public int pop() {
+		this.fillFirstBucket();
+		int v = this.head[0];
+		this.unlink(v);
+		this.node[4 * v] = -1;
+		this.size--;
+		return v;
+	}
+
+	private int bucketOf(int u) {
+		return u == this.last ? 0 : 32 - Integer.numberOfLeadingZeros(u ^ this.last);
+	}
+
+	/**
+	 * If bucket 0 is empty, make the smallest key the last minimum and
+	 * spread the first non-empty bucket over the lower ones.
+	 */
+	private void fillFirstBucket() {
+		if (this.head[0] >= 0) return;
+		int b = 1;
+		while (this.head[b] < 0) b++;
+		int min = this.node[4 * this.head[b] + 1];
+		for (int v = this.node[4 * this.head[b] + 2]; v >= 0; v = this.node[4 * v + 2]) {
+			if (Integer.compareUnsigned(this.node[4 * v + 1], min) < 0) min = this.node[4 * v + 1];
+		}
+		this.last = min;
+		int v = this.head[b];
+		this.head[b] = -1;
+		while (v >= 0) {
+			int w = this.node[4 * v + 2];
+			this.link(v, this.bucketOf(this.node[4 * v + 1]));
+			v = w;
+		}
+	}
+
+	private void link(int v, int b) {
+		int h = this.head[b];
+		this.node[4 * v] = b;
+		this.node[4 * v + 3] = -1;
+		this.node[4 * v + 2] = h;
+		if (h >= 0) this.node[4 * h + 3] = v;
+		this.head[b] = v;
+	}
+
+	private void unlink(int v) {
+		int p = this.node[4 * v + 3];
+		int n = this.node[4 * v + 2];
+		if (p >= 0) this.node[4 * p + 2] = n;
+		else this.head[this.node[4 * v]] = n;
+		if (n >= 0) this.node[4 * n + 3] = p;
+	}
+}
@@ -0,0 +1,124 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Result of a reachability sweep (GreedLS.FWR / GreedLS.BWR): the
+ * earliest arrival or latest departure time of every reached vertex.
+ *
+ * Times are held in a dense array indexed by vertex ID, valid only for
+ * vertices stamped with the current epoch, and the reached vertices are
+ * listed in the order they were first reached, and marked in a bitset
+ * for word-level set operations (see GreedLS.calculateCandidateArcSet).
+ * The arrays and the priority queue of the sweep are reused by the next
+ * sweep.
+ */
+public class Reachability {
+	private int epoch = 0;
+	private int[] stamp = new int[0];
+	private int[] time = new int[0];
+
+	private int size = 0;
+	private int[] reached = new int[0];
+
+	/* Bit v of bits[v >>> 6] is set for every reached vertex v; the words
+	   outside firstWord..lastWord are 0 */
+	private long[] bits = new long[0];
+	private int firstWord = Integer.MAX_VALUE;
+	private int lastWord = -1;
+
+	/* Priority queue of the sweep, of type SearchWorkspace.queueType */
+	VertexQueue queue = null;
+	private String queueType = null;
+
+	/**
+	 * Forget all the vertices, for a sweep over n vertices.
+	 */
+	public void clear(int n) {
+		for (int i = 0; i < this.size; i++) this.bits[this.reached[i] >>> 6] = 0;
+		this.firstWord = Integer.MAX_VALUE;
+		this.lastWord = -1;
+		if (this.stamp.length < n) {
+			int capacity = Math.max(n, this.stamp.length + (this.stamp.length >> 3));
+			this.stamp = new int[capacity];
+			this.time = new int[capacity];
+			this.reached = new int[capacity];
+			this.bits = new long[(capacity + 63) >>> 6];
+			this.epoch = 0;
+		}
+		if (++this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.stamp, 0);
+			this.epoch = 1;
+		}
+		this.size = 0;
+		if (!SearchWorkspace.queueType.equals(this.queueType)) {
+			this.queue = VertexQueue.create(SearchWorkspace.queueType, n);
+			this.queueType = SearchWorkspace.queueType;
+		} else {
+			this.queue.clear(n);
+		}
+	}
+
+	public boolean contains(int v) {
+		return this.stamp[v] == this.epoch;
+	}
+
+	/**
+	 * @return the time of v; v must be reached.
+	 */
+	public int time(int v) {
+		return this.time[v];
+	}
+
+	/**
+	 * Set the time of v, adding v to the reached vertices if needed.
+	 */
+	public void set(int v, int t) {
+		if (this.stamp[v] != this.epoch) {
+			this.stamp[v] = this.epoch;
+			this.reached[this.size++] = v;
+			int w = v >>> 6;
+			this.bits[w] |= 1L << v;
+			if (w < this.firstWord) this.firstWord = w;
+			if (w > this.lastWord) this.lastWord = w;
+		}
+		this.time[v] = t;
+	}
+
+	/**
+	 * @return the number of reached vertices.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the i-th reached vertex.
+	 */
+	public int vertex(int i) {
+		return this.reached[i];
+	}
+
+	/**
+	 * @return the bitset of the reached vertices: bit v of word v >>> 6.
+	 *         Valid until the next clear; must not be modified.
+	 */
+	long[] bits() {
+		return this.bits;
+	}
+
+	/**
+	 * @return the first word of bits() that may be non-zero.
+	 */
+	int firstWord() {
+		return this.firstWord;
+	}
+
+	/**
+	 * @return the last word of bits() that may be non-zero, or -1.
+	 */
+	int lastWord() {
+		return this.lastWord;
+	}
+}
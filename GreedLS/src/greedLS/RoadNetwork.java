@@ -0,0 +1,69 @@
+package greedLS;
+
+
+/**
+ * Read-only view of the road network shared by the search routines
+ * (FindTDSP.tdsp, GreedLS.FWR and GreedLS.BWR).
+ *
+ * Vertices are numbered 0..vertexCount()-1 and arcs 0..arcCount()-1.
+ * The arcs leaving a vertex v are visited with
+ *
+ *   for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a))
+ *
+ * and the arcs entering v with firstIn() / nextIn(). An entry of the
+ * reverse star is a position in the reverse arrays, not an arc index;
+ * inArc() converts it back to the index of the (forward) arc.
+ */
+public interface RoadNetwork {
+
+	public static final int NO_ARC = -1;
+
+	public int vertexCount();
+
+	public int arcCount();
+
+	/* Forward star */
+	public int firstOut(int v);
+
+	public int nextOut(int v, int a);
+
+	public int arcSource(int a);
+
+	public int arcTarget(int a);
+
+	/* Travel time of the arc when entered at time [millisecond] */
+	public int arcCost(int a, int time);
+
+	/* Value collected along the arc */
+	public int arcValue(int a);
+
+	/* Reverse star */
+	public int firstIn(int v);
+
+	public int nextIn(int v, int r);
+
+	public int inArc(int r);
+
+	public int inSource(int r);
+
+	public int inCost(int r, int time);
+
+	/**
+	 * @return the latest time to enter the arc of reverse entry r so as to
+	 *         reach its target no later than arrival.
+	 */
+	public int inLatestDeparture(int r, int arrival);
+
+	public int inValue(int r);
+
+	/**
+	 * @return true if the travel time of some arc depends on the time
+	 *         the arc is entered, see CostProfiles.
+	 */
+	public boolean isTimeDependent();
+
+	/**
+	 * @return the index of the arc (source, target), or NO_ARC.
+	 */
+	public int findArc(int source, int target);
+}
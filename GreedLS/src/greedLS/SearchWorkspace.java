@@ -0,0 +1,145 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Per-vertex labels of a shortest path search (arrival time, collected
+ * value, parent, settled flag) and its priority queue, reused from one
+ * search to the next.
+ *
+ * A label is valid only if its stamp equals the epoch of the current
+ * search; starting a search increments the epoch instead of clearing the
+ * arrays, so a short search only pays for the vertices it touches.
+ * Each thread has its own workspace, see FindTDSP.
+ */
+public class SearchWorkspace {
+	private static final ThreadLocal<SearchWorkspace> perThread = ThreadLocal.withInitial(SearchWorkspace::new);
+	/* Second workspace for the backward half of a bidirectional search */
+	private static final ThreadLocal<SearchWorkspace> perThreadBackward = ThreadLocal.withInitial(SearchWorkspace::new);
+
+	/**
+	 * Priority queue of the searches, see VertexQueue: BINARY_HEAP,
+	 * DARY_HEAP or RADIX_HEAP. All the searches are monotone (non-negative
+	 * travel times), as RADIX_HEAP requires.
+	 */
+	public static String queueType = VertexQueue.DARY_HEAP;
+
+	private int epoch = 0;
+	/* Epoch in which a vertex was reached / settled / marked as target */
+	private int[] reached = new int[0];
+	private int[] settled = new int[0];
+	private int[] target = new int[0];
+
+	private int[] arrivalTime = new int[0];
+	private int[] collectedValue = new int[0];
+	private int[] parent = new int[0];
+
+	/* Priority queue of the search, keyed by arrival time, and its type */
+	private VertexQueue heap = null;
+	private String heapType = null;
+
+	/**
+	 * @return the workspace of the current thread, cleared for a search
+	 *         over n vertices.
+	 */
+	public static SearchWorkspace start(int n) {
+		SearchWorkspace ws = perThread.get();
+		ws.clear(n);
+		return ws;
+	}
+
+	/**
+	 * @return the backward workspace of the current thread, cleared for
+	 *         a search over n vertices.
+	 */
+	public static SearchWorkspace startBackward(int n) {
+		SearchWorkspace ws = perThreadBackward.get();
+		ws.clear(n);
+		return ws;
+	}
+
+	private void clear(int n) {
+		if (this.reached.length < n) {
+			int capacity = Math.max(n, this.reached.length + (this.reached.length >> 3));
+			this.reached = new int[capacity];
+			this.settled = new int[capacity];
+			this.target = new int[capacity];
+			this.arrivalTime = new int[capacity];
+			this.collectedValue = new int[capacity];
+			this.parent = new int[capacity];
+			this.epoch = 0;
+		}
+		if (!queueType.equals(this.heapType)) {
+			this.heap = VertexQueue.create(queueType, n);
+			this.heapType = queueType;
+		} else {
+			this.heap.clear(n);
+		}
+		if (++this.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(this.reached, 0);
+			Arrays.fill(this.settled, 0);
+			Arrays.fill(this.target, 0);
+			this.epoch = 1;
+		}
+	}
+
+	/**
+	 * @return the arrival time at v, or Integer.MAX_VALUE if v has not
+	 *         been reached.
+	 */
+	public int arrivalTime(int v) {
+		return this.reached[v] == this.epoch ? this.arrivalTime[v] : Integer.MAX_VALUE;
+	}
+
+	public int collectedValue(int v) {
+		return this.reached[v] == this.epoch ? this.collectedValue[v] : 0;
+	}
+
+	/**
+	 * @return the predecessor of v on its path, or -1.
+	 */
+	public int parent(int v) {
+		return this.reached[v] == this.epoch ? this.parent[v] : -1;
+	}
+
+	/**
+	 * Set the label of v.
+	 */
+	public void reach(int v, int time, int value, int p) {
+		this.reached[v] = this.epoch;
+		this.arrivalTime[v] = time;
+		this.collectedValue[v] = value;
+		this.parent[v] = p;
+	}
+
+	/**
+	 * @return the priority queue of the search, empty at the start.
+	 */
+	public VertexQueue heap() {
+		return this.heap;
+	}
+
+	public boolean isSettled(int v) {
+		return this.settled[v] == this.epoch;
+	}
+
+	public void settle(int v) {
+		this.settled[v] = this.epoch;
+	}
+
+	/**
+	 * Mark v as a target of a one-to-many search.
+	 *
+	 * @return false if v was already marked.
+	 */
+	public boolean markTarget(int v) {
+		if (this.target[v] == this.epoch) return false;
+		this.target[v] = this.epoch;
+		return true;
+	}
+
+	public boolean isTarget(int v) {
+		return this.target[v] == this.epoch;
+	}
+}
@@ -1,10 +1,33 @@
 package greedLS;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 public class Solution {
-	public List<Gap> gapList;
+	/**
+	 * The gaps of the solution path, in order, linked through Gap.prev 
+	 * and Gap.next. Change it through addGap, insertArc and empty only, 
+	 * so that the index below follows it.
+	 */
+	public GapList gapList;
+	
+	/* The arcs of the solution path: those of the vertex lists of the 
+	   gaps and those joining the end of a gap to the start of the next */
+	private ArcCounts arcs = new ArcCounts();
+	
+	/* The number of times each vertex occurs in the vertex lists */
+	private int[] occupancy = new int[0];
+	
+	/* The gap holding every occurrence of each vertex, or null if 
+	   several gaps hold it (or none) */
+	private Gap[] owner = new Gap[0];
+	
+	/* Incremented by every insertArc, which sets Gap.version of the 
+	   gaps it adds, and of those it delays on time-dependent networks, 
+	   to the new value */
+	int version = 0;
 	
 	/* The travel time of the solution path [millisecond] */
 	public int totalCost; 
@@ -13,7 +36,7 @@ public class Solution {
 	public int totalValue; 
 	
 	Solution(){
-		this.gapList = new LinkedList<Gap>();
+		this.gapList = new GapList();
 		this.totalCost = 0;
 		this.totalValue = 0;
 	}
@@ -33,16 +56,254 @@ public class Solution {
 						  Gap best_vn_vj, 
 						  int deltaValue, 
 						  double deltaCost){
-		this.gapList.add(this.gapList.indexOf(gap), best_vi_vm);
-		this.gapList.add(this.gapList.indexOf(gap), best_vn_vj);
-		this.gapList.remove(gap);
+		Gap prev = gap.prev;
+		Gap next = gap.next;
+		this.indexJunction(prev, gap, -1);
+		this.indexGap(gap, -1);
+		this.indexJunction(gap, next, -1);
+		this.indexJunction(prev, best_vi_vm, 1);
+		this.indexGap(best_vi_vm, 1);
+		this.indexJunction(best_vi_vm, best_vn_vj, 1);
+		this.indexGap(best_vn_vj, 1);
+		this.indexJunction(best_vn_vj, next, 1);
+		this.gapList.replace(gap, best_vi_vm, best_vn_vj);
+		this.version++;
+		best_vi_vm.version = this.version;
+		best_vn_vj.version = this.version;
+		/* The detour delays every gap after the inserted arc, which 
+		   changes their criteria on time-dependent networks only. */
+		boolean delayed = deltaCost != 0 && GreedLS.graph.network.isTimeDependent();
+		for (Gap g = next; g != null; g = g.next) {
+			g.actualStarttime += (int) deltaCost;
+			if (delayed) g.version = this.version;
+		}
 		this.totalCost += deltaCost;
 		this.totalValue += deltaValue;
 	}
 	
+	/**
+	 * Append a gap to the solution path; its vertex list must be 
+	 * complete. totalCost and totalValue are left to the caller.
+	 */
+	public void addGap(Gap gap){
+		this.indexJunction(this.gapList.last, gap, 1);
+		this.indexGap(gap, 1);
+		this.gapList.add(gap);
+	}
+	
 	public void empty(){
 		this.gapList.clear();
+		this.arcs.clear();
+		Arrays.fill(this.occupancy, 0);
+		Arrays.fill(this.owner, null);
 		this.totalCost = 0;
 		this.totalValue = 0;
 	}
+	
+	/**
+	 * @return the gap of the solution path that starts like gap: gap 
+	 *         itself, or the first of the gaps that replaced it.
+	 */
+	public Gap current(Gap gap){
+		while (gap.replacement != null) gap = gap.replacement;
+		return gap;
+	}
+	
+	/**
+	 * @return true if the arc (source, target) is in the solution path.
+	 */
+	public boolean containsArc(int source, int target){
+		return this.arcs.contains(source, target);
+	}
+	
+	/**
+	 * @return the number of times v occurs in the vertex lists of the 
+	 *         gaps; 0 if v is not on the solution path.
+	 */
+	public int occupancy(int v){
+		return v < this.occupancy.length ? this.occupancy[v] : 0;
+	}
+	
+	/**
+	 * @return true if v occurs in a gap of the solution path other than 
+	 *         gap. Exact when no vertex occurs in two gaps, which the 
+	 *         insertion loop of GreedLS keeps; otherwise it may answer 
+	 *         true for a vertex left in gap only.
+	 */
+	public boolean occupiedOutside(int v, Gap gap){
+		return this.occupancy(v) > 0 && this.owner[v] != gap;
+	}
+	
+	/**
+	 * Add (delta 1) or remove (delta -1) the vertices and arcs of the 
+	 * vertex list of a gap.
+	 */
+	private void indexGap(Gap gap, int delta){
+		int prev = -1;
+		for (int v : gap.vexIDList) {
+			if (v >= this.occupancy.length) {
+				this.occupancy = Arrays.copyOf(this.occupancy, Math.max(v + 1, 2 * this.occupancy.length));
+				this.owner = Arrays.copyOf(this.owner, this.occupancy.length);
+			}
+			if (delta > 0) {
+				if (this.occupancy[v]++ == 0) this.owner[v] = gap;
+				else if (this.owner[v] != gap) this.owner[v] = null;
+			} else if (--this.occupancy[v] == 0) {
+				this.owner[v] = null;
+			}
+			if (prev != -1) {
+				if (delta > 0) this.arcs.add(prev, v);
+				else this.arcs.remove(prev, v);
+			}
+			prev = v;
+		}
+	}
+	
+	/**
+	 * Add or remove the arc from the end of gap a to the start of gap b.
+	 */
+	private void indexJunction(Gap a, Gap b, int delta){
+		if (a == null || b == null) return;
+		if (delta > 0) this.arcs.add(a.end, b.start);
+		else this.arcs.remove(a.end, b.start);
+	}
+	
+	/**
+	 * List of gaps linked through their prev and next fields, so that 
+	 * a gap is replaced and its successors are reached without a search 
+	 * from the head. A gap is in at most one GapList at a time. Only 
+	 * add, clear and replace change it; its iterators are read-only.
+	 */
+	public static class GapList extends AbstractSequentialList<Gap> {
+		Gap first = null;
+		Gap last = null;
+		private int size = 0;
+		
+		@Override
+		public int size(){
+			return this.size;
+		}
+		
+		/**
+		 * Append a gap.
+		 */
+		@Override
+		public boolean add(Gap gap){
+			gap.prev = this.last;
+			gap.next = null;
+			gap.replacement = null;
+			if (this.last == null) this.first = gap;
+			else this.last.next = gap;
+			this.last = gap;
+			this.size++;
+			this.modCount++;
+			return true;
+		}
+		
+		@Override
+		public void clear(){
+			for (Gap g = this.first; g != null; ) {
+				Gap next = g.next;
+				g.prev = null;
+				g.next = null;
+				g = next;
+			}
+			this.first = null;
+			this.last = null;
+			this.size = 0;
+			this.modCount++;
+		}
+		
+		/**
+		 * Put a and b in the place of gap, which then refers to a as its 
+		 * replacement.
+		 */
+		void replace(Gap gap, Gap a, Gap b){
+			a.prev = gap.prev;
+			a.next = b;
+			b.prev = a;
+			b.next = gap.next;
+			a.replacement = null;
+			b.replacement = null;
+			if (gap.prev == null) this.first = a;
+			else gap.prev.next = a;
+			if (gap.next == null) this.last = b;
+			else gap.next.prev = b;
+			gap.prev = null;
+			gap.next = null;
+			gap.replacement = a;
+			this.size++;
+			this.modCount++;
+		}
+		
+		@Override
+		public ListIterator<Gap> listIterator(int index){
+			if (index < 0 || index > this.size) throw new IndexOutOfBoundsException("index " + index);
+			Gap next = this.first;
+			for (int i = 0; i < index; i++) next = next.next;
+			return new Cursor(next, index);
+		}
+		
+		private class Cursor implements ListIterator<Gap> {
+			private Gap next;
+			private int index;
+			
+			Cursor(Gap next, int index){
+				this.next = next;
+				this.index = index;
+			}
+			
+			@Override
+			public boolean hasNext(){
+				return this.index < size;
+			}
+			
+			@Override
+			public Gap next(){
+				if (this.next == null) throw new NoSuchElementException();
+				Gap g = this.next;
+				this.next = g.next;
+				this.index++;
+				return g;
+			}
+			
+			@Override
+			public boolean hasPrevious(){
+				return this.index > 0;
+			}
+			
+			@Override
+			public Gap previous(){
+				if (this.index == 0) throw new NoSuchElementException();
+				this.next = (this.next == null) ? last : this.next.prev;
+				this.index--;
+				return this.next;
+			}
+			
+			@Override
+			public int nextIndex(){
+				return this.index;
+			}
+			
+			@Override
+			public int previousIndex(){
+				return this.index - 1;
+			}
+			
+			@Override
+			public void remove(){
+				throw new UnsupportedOperationException();
+			}
+			
+			@Override
+			public void set(Gap gap){
+				throw new UnsupportedOperationException();
+			}
+			
+			@Override
+			public void add(Gap gap){
+				throw new UnsupportedOperationException();
+			}
+		}
+	}
 }
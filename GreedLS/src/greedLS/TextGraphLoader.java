@@ -0,0 +1,416 @@
+package greedLS;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Streaming parser for the text arc file ("source,target:cost,value;...")
+ * and node file ("id,lat,lng").
+ *
+ * A file is cut into chunks on line boundaries; every chunk is
+ * memory-mapped and parsed on the fork-join pool straight from the bytes
+ * into primitive arrays, without creating a String per line. The chunks
+ * are then concatenated in file order.
+ */
+public class TextGraphLoader {
+	/* Target size of a chunk [byte] */
+	public static int chunkBytes = 8 << 20;
+
+	private static final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * Arcs in file order. If a line lists several "cost,value" pairs, they
+	 * are the costs of consecutive 15-minute intervals and go into the
+	 * profile pool; the value of the last pair is kept.
+	 */
+	public static class ArcTable {
+		public int size;
+		public int[] sources;
+		public int[] targets;
+		public int[] costs; //encoded, see CostProfiles
+		public int[] values;
+		public int maxId = -1;
+		public CostProfiles profiles = new CostProfiles();
+
+		ArcTable(int capacity) {
+			this.sources = new int[capacity];
+			this.targets = new int[capacity];
+			this.costs = new int[capacity];
+			this.values = new int[capacity];
+		}
+
+		void add(int s, int t, int c, int v) {
+			if (this.size == this.sources.length) {
+				int capacity = Math.max(16, this.size + (this.size >> 1));
+				this.sources = Arrays.copyOf(this.sources, capacity);
+				this.targets = Arrays.copyOf(this.targets, capacity);
+				this.costs = Arrays.copyOf(this.costs, capacity);
+				this.values = Arrays.copyOf(this.values, capacity);
+			}
+			this.sources[this.size] = s;
+			this.targets[this.size] = t;
+			this.costs[this.size] = c;
+			this.values[this.size] = v;
+			this.size++;
+			if (s > this.maxId) this.maxId = s;
+			if (t > this.maxId) this.maxId = t;
+		}
+	}
+
+	/**
+	 * Node IDs and coordinates in file order.
+	 */
+	public static class NodeTable {
+		public int size;
+		public int[] ids; //external, see VertexIdMap
+		public double[] lat;
+		public double[] lng;
+
+		NodeTable(int capacity) {
+			this.ids = new int[capacity];
+			this.lat = new double[capacity];
+			this.lng = new double[capacity];
+		}
+
+		void add(int id, double plat, double plng) {
+			if (this.size == this.lat.length) {
+				int capacity = Math.max(16, this.size + (this.size >> 1));
+				this.ids = Arrays.copyOf(this.ids, capacity);
+				this.lat = Arrays.copyOf(this.lat, capacity);
+				this.lng = Arrays.copyOf(this.lng, capacity);
+			}
+			this.ids[this.size] = id;
+			this.lat[this.size] = plat;
+			this.lng[this.size] = plng;
+			this.size++;
+		}
+	}
+
+	/**
+	 * Start parsing the node file on the pool.
+	 */
+	public static ForkJoinTask<NodeTable> readNodesAsync(final String filename) {
+		return pool.submit(() -> readNodes(filename));
+	}
+
+	public static NodeTable readNodes(String filename) throws IOException {
+		final List<NodeTable> parts = new ArrayList<NodeTable>();
+		forEachChunk(filename, parts, (buf, idx) -> {
+			NodeTable t = new NodeTable(buf.limit() / 24 + 1);
+			parseNodes(buf, t);
+			parts.set(idx, t);
+		});
+		int total = 0;
+		for (NodeTable t : parts) total += t.size;
+		NodeTable all = new NodeTable(total);
+		for (int i = 0; i < parts.size(); i++) {
+			NodeTable t = parts.get(i);
+			System.arraycopy(t.ids, 0, all.ids, all.size, t.size);
+			System.arraycopy(t.lat, 0, all.lat, all.size, t.size);
+			System.arraycopy(t.lng, 0, all.lng, all.size, t.size);
+			all.size += t.size;
+			parts.set(i, null);
+		}
+		return all;
+	}
+
+	public static ArcTable readArcs(String filename) throws IOException {
+		final List<ArcTable> parts = new ArrayList<ArcTable>();
+		forEachChunk(filename, parts, (buf, idx) -> {
+			//---about 40 bytes per line; add() grows the table if needed
+			ArcTable t = new ArcTable(buf.limit() / 40 + 1);
+			parseArcs(buf, t);
+			parts.set(idx, t);
+		});
+		int total = 0;
+		for (ArcTable t : parts) total += t.size;
+		ArcTable all = new ArcTable(total);
+		for (int i = 0; i < parts.size(); i++) {
+			ArcTable t = parts.get(i);
+			System.arraycopy(t.sources, 0, all.sources, all.size, t.size);
+			System.arraycopy(t.targets, 0, all.targets, all.size, t.size);
+			int[] pool = t.profiles.toArray();
+			for (int a = 0; a < t.size; a++) {
+				all.costs[all.size + a] = all.profiles.addEncoded(pool, t.costs[a]);
+			}
+			System.arraycopy(t.values, 0, all.values, all.size, t.size);
+			all.size += t.size;
+			all.maxId = Math.max(all.maxId, t.maxId);
+			parts.set(i, null);
+		}
+		return all;
+	}
+
+	private interface ChunkParser {
+		void parse(ByteBuffer buf, int idx);
+	}
+
+	/**
+	 * Split the file on line boundaries and parse every chunk on the pool.
+	 * The result of chunk i is stored at parts[i].
+	 */
+	private static <T> void forEachChunk(String filename, List<T> parts, final ChunkParser parser) throws IOException {
+		try (final FileChannel ch = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			long size = ch.size();
+			int chunks = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, (size + chunkBytes - 1) / chunkBytes));
+			final long[] bounds = new long[chunks + 1];
+			for (int i = 1; i < chunks; i++) {
+				bounds[i] = Math.max(bounds[i - 1], nextLineStart(ch, size * i / chunks));
+			}
+			bounds[chunks] = size;
+			for (int i = 0; i < chunks; i++) parts.add(null);
+
+			List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(chunks);
+			for (int i = 0; i < chunks; i++) {
+				final int idx = i;
+				tasks.add(new RecursiveAction() {
+					@Override
+					protected void compute() {
+						long len = bounds[idx + 1] - bounds[idx];
+						try {
+							ByteBuffer buf = len == 0 ? ByteBuffer.allocate(0)
+									: ch.map(FileChannel.MapMode.READ_ONLY, bounds[idx], len);
+							parser.parse(buf, idx);
+						} catch (IOException e) {
+							throw new RuntimeException(e);
+						}
+					}
+				});
+			}
+			ForkJoinTask.invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * @return the position of the first byte after the next '\n' at or after pos.
+	 */
+	private static long nextLineStart(FileChannel ch, long pos) throws IOException {
+		ByteBuffer window = ByteBuffer.allocate(4096);
+		while (pos < ch.size()) {
+			window.clear();
+			int n = ch.read(window, pos);
+			if (n <= 0) break;
+			for (int i = 0; i < n; i++) {
+				if (window.get(i) == '\n') return pos + i + 1;
+			}
+			pos += n;
+		}
+		return ch.size();
+	}
+
+	/**
+	 * Parse lines "source,target:cost,value;cost,value;...", with at most
+	 * CostProfiles.TIME_SLOTS pairs.
+	 */
+	static void parseArcs(ByteBuffer buf, ArcTable t) {
+		Cursor c = new Cursor(buf);
+		int[] costs = new int[CostProfiles.TIME_SLOTS];
+		while (c.skipBlankLines()) {
+			int s = c.parseInt();
+			c.expect(',');
+			int tg = c.parseInt();
+			c.expect(':');
+			int k = 0, value = 0;
+			do {
+				int cost = c.parseInt();
+				if (k == costs.length) throw c.error("more than " + costs.length + " interval costs");
+				costs[k++] = cost;
+				c.expect(',');
+				value = c.parseInt();
+			} while (c.accept(';') && !c.atLineEnd());
+			c.skipLine();
+			t.add(s, tg, t.profiles.add(costs, k), value);
+		}
+	}
+
+	/**
+	 * Parse lines "id,lat,lng", where id is a number with an optional
+	 * prefix, e.g., "n12". Lines without exactly three fields are skipped.
+	 */
+	static void parseNodes(ByteBuffer buf, NodeTable t) {
+		Cursor c = new Cursor(buf);
+		while (c.skipBlankLines()) {
+			if (c.fieldsInLine() != 3) {
+				c.skipLine();
+				continue;
+			}
+			int id = c.parseId();
+			c.expect(',');
+			double lat = c.parseDouble();
+			c.expect(',');
+			double lng = c.parseDouble();
+			c.skipLine();
+			t.add(id, lat, lng);
+		}
+	}
+
+	/**
+	 * Read position in a byte buffer.
+	 */
+	private static class Cursor {
+		private final ByteBuffer buf;
+		private final int end;
+		private int pos;
+
+		Cursor(ByteBuffer buf) {
+			this.buf = buf;
+			this.end = buf.limit();
+			this.pos = 0;
+		}
+
+		/**
+		 * @return false at the end of the buffer.
+		 */
+		boolean skipBlankLines() {
+			while (this.pos < this.end) {
+				byte b = this.buf.get(this.pos);
+				if (b != '\n' && b != '\r' && b != ' ' && b != '\t') return true;
+				this.pos++;
+			}
+			return false;
+		}
+
+		boolean atLineEnd() {
+			skipSpaces();
+			return this.pos >= this.end || this.buf.get(this.pos) == '\n' || this.buf.get(this.pos) == '\r';
+		}
+
+		void skipLine() {
+			while (this.pos < this.end && this.buf.get(this.pos++) != '\n') ;
+		}
+
+		int fieldsInLine() {
+			int fields = 1;
+			for (int i = this.pos; i < this.end; i++) {
+				byte b = this.buf.get(i);
+				if (b == '\n') break;
+				if (b == ',') fields++;
+			}
+			return fields;
+		}
+
+		/**
+		 * Parse a number after an optional non-numeric prefix, e.g., "n12".
+		 */
+		int parseId() {
+			skipSpaces();
+			while (this.pos < this.end) {
+				byte b = this.buf.get(this.pos);
+				if ((b >= '0' && b <= '9') || b == '-' || b == ',' || b == '\n') break;
+				this.pos++;
+			}
+			return parseInt();
+		}
+
+		void skipSpaces() {
+			while (this.pos < this.end) {
+				byte b = this.buf.get(this.pos);
+				if (b != ' ' && b != '\t') return;
+				this.pos++;
+			}
+		}
+
+		boolean accept(char ch) {
+			skipSpaces();
+			if (this.pos < this.end && this.buf.get(this.pos) == ch) {
+				this.pos++;
+				return true;
+			}
+			return false;
+		}
+
+		void expect(char ch) {
+			if (!accept(ch)) throw error("'" + ch + "' expected");
+		}
+
+		int parseInt() {
+			skipSpaces();
+			boolean negative = accept('-');
+			long limit = negative ? Integer.MAX_VALUE + 1L : Integer.MAX_VALUE;
+			int start = this.pos;
+			long v = 0;
+			while (this.pos < this.end) {
+				int d = this.buf.get(this.pos) - '0';
+				if (d < 0 || d > 9) break;
+				v = v * 10 + d;
+				if (v > limit) throw error("integer too large");
+				this.pos++;
+			}
+			if (this.pos == start) throw error("number expected");
+			return (int) (negative ? -v : v);
+		}
+
+		/**
+		 * Decimal numbers with up to 18 significant digits are converted
+		 * exactly; longer ones fall back to Double.parseDouble.
+		 */
+		double parseDouble() {
+			skipSpaces();
+			int start = this.pos;
+			boolean negative = accept('-');
+			if (!negative) accept('+');
+			long mantissa = 0;
+			int digits = 0, scale = 0;
+			boolean any = false;
+			while (this.pos < this.end) {
+				int d = this.buf.get(this.pos) - '0';
+				if (d < 0 || d > 9) break;
+				if (mantissa != 0 || d != 0) digits++;
+				mantissa = mantissa * 10 + d;
+				any = true;
+				this.pos++;
+			}
+			if (accept('.')) {
+				while (this.pos < this.end) {
+					int d = this.buf.get(this.pos) - '0';
+					if (d < 0 || d > 9) break;
+					if (mantissa != 0 || d != 0) digits++;
+					mantissa = mantissa * 10 + d;
+					scale++;
+					any = true;
+					this.pos++;
+				}
+			}
+			if (!any) throw error("number expected");
+			int exp = 0;
+			if (this.pos < this.end && (this.buf.get(this.pos) == 'e' || this.buf.get(this.pos) == 'E')) {
+				this.pos++;
+				boolean negativeExp = accept('-');
+				if (!negativeExp) accept('+');
+				exp = parseInt();
+				if (negativeExp) exp = -exp;
+			}
+			if (digits > 18 || (mantissa >> 53) != 0 || Math.abs(exp - scale) > 22) {
+				byte[] text = new byte[this.pos - start];
+				for (int i = 0; i < text.length; i++) text[i] = this.buf.get(start + i);
+				return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+			}
+			double v = mantissa;
+			int e = exp - scale;
+			if (e < 0) v /= POW10[-e];
+			else if (e > 0) v *= POW10[e];
+			return negative ? -v : v;
+		}
+
+		RuntimeException error(String msg) {
+			return new IllegalArgumentException(msg + " near byte " + this.pos + " of chunk");
+		}
+	}
+
+	private static final double[] POW10 = new double[23];
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+	}
+}
@@ -0,0 +1,138 @@
+package greedLS;
+
+import java.util.Arrays;
+
+
+/**
+ * Translation between the node IDs of the input files (external IDs, e.g.,
+ * 12 for the node "n12") and the dense vertex IDs 0..size()-1 used to index
+ * every array of the graph and of the searches.
+ *
+ * Dense IDs follow the order of the node file; IDs that only appear in the
+ * arc file are appended after the nodes. Query input and path output are
+ * translated at the boundary, see GreedLS.GreedLSAlgorithm.
+ */
+public class VertexIdMap {
+	/* External ID of each dense ID */
+	private int[] external;
+	private int size;
+
+	/* True if external[i] == i for every i, the index is then not needed */
+	private boolean identity;
+
+	/* External IDs in ascending order and the corresponding dense IDs */
+	private int[] sortedExternal;
+	private int[] sortedDense;
+
+	/**
+	 * @param ids external IDs of the nodes in file order
+	 * @param count number of nodes
+	 */
+	public VertexIdMap(int[] ids, int count) {
+		this.external = Arrays.copyOf(ids, Math.max(count, 16));
+		this.size = count;
+		this.reindex();
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the external ID of a dense ID.
+	 */
+	public int toExternal(int v) {
+		return this.external[v];
+	}
+
+	/**
+	 * @return the dense ID of an external ID, or Vertex.INVALID_ID.
+	 */
+	public int toDense(int id) {
+		if (this.identity) return (id >= 0 && id < this.size) ? id : Vertex.INVALID_ID;
+		int i = Arrays.binarySearch(this.sortedExternal, id);
+		return i >= 0 ? this.sortedDense[i] : Vertex.INVALID_ID;
+	}
+
+	/**
+	 * Parse a node ID as written in the input files, e.g., "n12" or "12".
+	 *
+	 * @return the dense ID, or Vertex.INVALID_ID.
+	 */
+	public int parse(String token) {
+		String s = token.trim();
+		int i = 0;
+		while (i < s.length() && !Character.isDigit(s.charAt(i)) && s.charAt(i) != '-') i++;
+		try {
+			return this.toDense(Integer.parseInt(s.substring(i)));
+		} catch (NumberFormatException e) {
+			return Vertex.INVALID_ID;
+		}
+	}
+
+	/**
+	 * Replace the external IDs in ids[0..count-1] by dense IDs. IDs without
+	 * a node get new dense IDs after the existing ones.
+	 */
+	public void translate(int[] ids, int count) {
+		int[] missing = new int[16];
+		int k = 0;
+		for (int i = 0; i < count; i++) {
+			if (this.toDense(ids[i]) == Vertex.INVALID_ID) {
+				if (k == missing.length) missing = Arrays.copyOf(missing, k * 2);
+				missing[k++] = ids[i];
+			}
+		}
+		if (k > 0) {
+			Arrays.sort(missing, 0, k);
+			for (int i = 0; i < k; i++) {
+				if (i == 0 || missing[i] != missing[i - 1]) this.append(missing[i]);
+			}
+			this.reindex();
+		}
+		if (this.identity) return;
+		for (int i = 0; i < count; i++) {
+			ids[i] = this.toDense(ids[i]);
+		}
+	}
+
+	/**
+	 * Renumber the dense IDs: dense ID v becomes rank[v].
+	 */
+	public void permute(int[] rank) {
+		int[] permuted = new int[this.external.length];
+		for (int v = 0; v < this.size; v++) permuted[rank[v]] = this.external[v];
+		this.external = permuted;
+		this.reindex();
+	}
+
+	private void append(int id) {
+		if (this.size == this.external.length)
+			this.external = Arrays.copyOf(this.external, this.size * 2);
+		this.external[this.size++] = id;
+	}
+
+	/**
+	 * Rebuild the lookup index over all the dense IDs.
+	 */
+	private void reindex() {
+		this.identity = true;
+		for (int i = 0; i < this.size && this.identity; i++) this.identity = this.external[i] == i;
+		if (this.identity) {
+			this.sortedExternal = null;
+			this.sortedDense = null;
+			return;
+		}
+		long[] pairs = new long[this.size];
+		for (int i = 0; i < this.size; i++) pairs[i] = ((long) this.external[i] << 32) | i;
+		Arrays.sort(pairs);
+		this.sortedExternal = new int[this.size];
+		this.sortedDense = new int[this.size];
+		for (int i = 0; i < this.size; i++) {
+			this.sortedExternal[i] = (int) (pairs[i] >> 32);
+			this.sortedDense[i] = (int) pairs[i];
+			if (i > 0 && this.sortedExternal[i] == this.sortedExternal[i - 1])
+				throw new IllegalArgumentException("duplicate node id " + this.sortedExternal[i]);
+		}
+	}
+}
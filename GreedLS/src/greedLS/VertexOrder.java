@@ -0,0 +1,183 @@
+package greedLS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+
+/**
+ * Renumbering of the vertices so that vertices close in the road network
+ * are also close in memory, see Graph.vertexOrder.
+ *
+ * HILBERT sorts the vertices along a Hilbert curve over (lat, lng); BFS
+ * numbers them in breadth-first order, ignoring arc directions, and is
+ * used instead when the vertices have no coordinates.
+ *
+ * An order is an array rank with rank[v] the new ID of vertex v.
+ */
+public class VertexOrder {
+	public static final String NONE = "NONE";
+	public static final String HILBERT = "HILBERT";
+	public static final String BFS = "BFS";
+
+	/* Cells per side of the Hilbert grid: 2^HILBERT_BITS */
+	private static final int HILBERT_BITS = 16;
+
+	/* Vertex IDs that share a 64-byte cache line of an int[] */
+	private static final int LINE_IDS = 16;
+
+	/**
+	 * Renumber the vertices of the graph in the given order.
+	 */
+	public static void apply(Graph graph, String order) {
+		if (order == null || order.equals(NONE)) return;
+		int n = graph.base.vertexCount();
+		if (n < 2) return;
+		long start = System.currentTimeMillis();
+		String before = locality(graph.base);
+
+		int[] rank = null;
+		if (order.equals(HILBERT) && hasCoordinates(graph.vertices)) {
+			rank = hilbert(graph.vertices);
+		} else if (order.equals(HILBERT) || order.equals(BFS)) {
+			rank = bfs(graph.base);
+			order = BFS;
+		} else {
+			throw new IllegalArgumentException("unknown vertex order " + order);
+		}
+
+		graph.base = graph.base.permute(rank);
+		graph.ids.permute(rank);
+		Vertex[] permuted = new Vertex[n];
+		for (int v = 0; v < n; v++) {
+			Vertex old = graph.vertices.get(v);
+			permuted[rank[v]] = new Vertex(rank[v], old.getLat(), old.getLng());
+		}
+		graph.vertices = new ArrayList<Vertex>(Arrays.asList(permuted));
+
+		System.out.println("Reordered vertices (" + order + ") in "
+				+ (System.currentTimeMillis() - start) + " ms");
+		System.out.println("  arc locality before: " + before);
+		System.out.println("  arc locality after:  " + locality(graph.base));
+	}
+
+	/**
+	 * @return false if all the vertices are at the same point.
+	 */
+	private static boolean hasCoordinates(ArrayList<Vertex> vertices) {
+		Vertex first = vertices.get(0);
+		for (Vertex v : vertices) {
+			if (v.getLat() != first.getLat() || v.getLng() != first.getLng()) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Order the vertices by their position on a Hilbert curve over the
+	 * bounding box of the coordinates.
+	 */
+	public static int[] hilbert(ArrayList<Vertex> vertices) {
+		int n = vertices.size();
+		double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+		double minLng = Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+		for (Vertex v : vertices) {
+			minLat = Math.min(minLat, v.getLat());
+			maxLat = Math.max(maxLat, v.getLat());
+			minLng = Math.min(minLng, v.getLng());
+			maxLng = Math.max(maxLng, v.getLng());
+		}
+		int side = 1 << HILBERT_BITS;
+		double scaleLat = (side - 1) / Math.max(maxLat - minLat, Double.MIN_NORMAL);
+		double scaleLng = (side - 1) / Math.max(maxLng - minLng, Double.MIN_NORMAL);
+
+		//---sort (curve position, vertex) pairs; the position takes 32 bits
+		long[] keys = new long[n];
+		for (int v = 0; v < n; v++) {
+			int x = (int) ((vertices.get(v).getLng() - minLng) * scaleLng);
+			int y = (int) ((vertices.get(v).getLat() - minLat) * scaleLat);
+			keys[v] = (hilbertIndex(side, x, y) << 31) | v;
+		}
+		Arrays.sort(keys);
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++) rank[(int) (keys[i] & Integer.MAX_VALUE)] = i;
+		return rank;
+	}
+
+	/**
+	 * @return the position of cell (x, y) on the Hilbert curve over a
+	 *         side x side grid, side a power of 2.
+	 */
+	static long hilbertIndex(int side, int x, int y) {
+		long d = 0;
+		for (int s = side >>> 1; s > 0; s >>>= 1) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			//---rotate the quadrant
+			if (ry == 0) {
+				if (rx == 1) {
+					x = s - 1 - x;
+					y = s - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Order the vertices breadth-first over arcs in both directions,
+	 * starting a new search from the lowest unnumbered vertex.
+	 */
+	public static int[] bfs(RoadNetwork g) {
+		int n = g.vertexCount();
+		int[] rank = new int[n];
+		Arrays.fill(rank, -1);
+		int[] queue = new int[n];
+		int next = 0;
+		for (int root = 0; root < n; root++) {
+			if (rank[root] != -1) continue;
+			int head = next;
+			queue[next] = root;
+			rank[root] = next++;
+			while (head < next) {
+				int v = queue[head++];
+				for (int a = g.firstOut(v); a != RoadNetwork.NO_ARC; a = g.nextOut(v, a)) {
+					int w = g.arcTarget(a);
+					if (rank[w] == -1) {
+						queue[next] = w;
+						rank[w] = next++;
+					}
+				}
+				for (int r = g.firstIn(v); r != RoadNetwork.NO_ARC; r = g.nextIn(v, r)) {
+					int w = g.inSource(r);
+					if (rank[w] == -1) {
+						queue[next] = w;
+						rank[w] = next++;
+					}
+				}
+			}
+		}
+		return rank;
+	}
+
+	/**
+	 * Edge-locality of the current numbering: the mean ID distance
+	 * |source - target| over all arcs and the share of arcs whose
+	 * endpoints fall into the same cache line of a per-vertex int[].
+	 */
+	public static String locality(RoadNetwork g) {
+		int m = g.arcCount();
+		if (m == 0) return "no arcs";
+		double gap = 0;
+		long sameLine = 0;
+		for (int a = 0; a < m; a++) {
+			int s = g.arcSource(a), t = g.arcTarget(a);
+			gap += Math.abs(s - t);
+			if (s / LINE_IDS == t / LINE_IDS) sameLine++;
+		}
+		return String.format("mean |source-target| %.1f, same cache line %.1f%%",
+				gap / m, 100.0 * sameLine / m);
+	}
+}
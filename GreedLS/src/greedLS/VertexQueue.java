@@ -0,0 +1,64 @@
+package greedLS;
+
+
+/**
+ * Priority queue of vertices 0..capacity-1 with int keys and decrease-key,
+ * as used by the shortest path searches (FindTDSP, GreedLS.FWR and
+ * GreedLS.BWR). The implementation is chosen by SearchWorkspace.queueType.
+ *
+ * Every vertex is in the queue at most once; push() inserts a vertex or
+ * lowers its key.
+ */
+public interface VertexQueue {
+
+	/* Indexed binary heap, DaryHeap with arity 2 */
+	public static final String BINARY_HEAP = "BINARY_HEAP";
+	/* Indexed DaryHeap with the default arity */
+	public static final String DARY_HEAP = "DARY_HEAP";
+	/* Monotone RadixHeap: no key may be pushed below the last popped key */
+	public static final String RADIX_HEAP = "RADIX_HEAP";
+
+	/**
+	 * Remove all the vertices and allow vertices 0..capacity-1.
+	 */
+	public void clear(int capacity);
+
+	public boolean isEmpty();
+
+	public int size();
+
+	public boolean contains(int v);
+
+	/**
+	 * @return the key of v; v must be in the queue.
+	 */
+	public int key(int v);
+
+	/**
+	 * @return the smallest key; the queue must not be empty.
+	 */
+	public int minKey();
+
+	/**
+	 * Insert v with key, or lower the key of v if it is in the queue
+	 * with a larger key.
+	 */
+	public void push(int v, int key);
+
+	/**
+	 * Remove the vertex with the smallest key.
+	 *
+	 * @return the vertex.
+	 */
+	public int pop();
+
+	/**
+	 * @return an empty queue of the given type for vertices 0..capacity-1.
+	 */
+	public static VertexQueue create(String type, int capacity) {
+		if (BINARY_HEAP.equals(type)) return new DaryHeap(2, capacity);
+		if (DARY_HEAP.equals(type)) return new DaryHeap(capacity);
+		if (RADIX_HEAP.equals(type)) return new RadixHeap(capacity);
+		throw new IllegalArgumentException("unknown queue type " + type);
+	}
+}